@@ -0,0 +1,390 @@
+package benchmark;
+
+import controller.CombatPredictor;
+import controller.CombatRecord;
+import controller.CombatResolver;
+import controller.EnemyController;
+import controller.FogOfWar;
+import controller.GalaxyGenerator;
+import controller.Game;
+import controller.Pathfinder;
+import controller.SaveGame;
+import model.Enemy;
+import model.buildings.SpaceInstallation;
+import model.buildings.SpaceInstallationType;
+import model.galaxy.Galaxy;
+import model.galaxy.MapSize;
+import model.galaxy.StarSystem;
+import model.ships.Fleet;
+import model.ships.ShipType;
+import model.tech.ResearchManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import view.galaxy.GalaxyPanel;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Pomiary gorących ścieżek silnika: generacja, tura, trasy, mgła wojny, walka, AI, mapa i zapis.
+// Operacje zmieniające stan (tura, bitwy, pierwsza klatka) mierzone są pojedynczo (SingleShotTime)
+// na świeżym stanie z @Setup(Level.Iteration), reszta jako średni czas wywołania.
+// Użycie: gradle :jmh:jmh [-Pjmh.args="wyrażenie nazwy"] - uruchamia JMH z -prof gc
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3)
+@Measurement(iterations = 7)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EngineBenchmark {
+
+    private static final long SEED = 1L;
+
+    // Mapa do pomiarów tury - na 400 gwiazdach gra AI kontra AI trwa dłużej niż późny etap
+    private static final int GAME_STARS = 400;
+
+    // Zapis i odczyt mierzone na dużej mapie w późnej grze
+    private static final int SAVE_STARS = 10_000;
+    private static final int SAVE_TURN = 150;
+
+    // Klatka mapy w rozdzielczości Full HD - czas nie powinien rosnąć z liczbą gwiazd
+    private static final int FRAME_WIDTH = 1920;
+    private static final int FRAME_HEIGHT = 1080;
+
+    private static final int PATH_QUERIES = 10_000;
+    private static final int BATTLES = 1_000;
+
+    @State(Scope.Benchmark)
+    public static class MapSizeState {
+        @Param({"SMALL", "MEDIUM", "LARGE"})
+        public MapSize size;
+    }
+
+    @State(Scope.Benchmark)
+    public static class StarCountState {
+        @Param({"1000", "10000"})
+        public int stars;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Galaxy generate(MapSizeState state) {
+        return GalaxyGenerator.generate(state.size, state.size.getStarCount(), SEED);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public Galaxy generateStars(StarCountState state) {
+        return GalaxyGenerator.generate(MapSize.LARGE, state.stars, SEED);
+    }
+
+//    Gra AI kontra AI doprowadzona raz do zadanej tury i zapisana. Każda iteracja wczytuje ją od nowa,
+//    bo mierzone operacje zmieniają stan. Wczytana gra ma świeży kontroler AI gracza bez pamięci
+//    poprzednich tur - tak samo jak po wczytaniu zapisu w grze.
+    @State(Scope.Benchmark)
+    public static class GameState {
+        @Param({"60", "200"})
+        public int turn;
+
+        byte[] save;
+        Game game;
+        EnemyController playerAI;
+
+        @Setup(Level.Trial)
+        public void play() {
+            Galaxy galaxy = GalaxyGenerator.generate(MapSize.LARGE, GAME_STARS, SEED);
+            Game game = new Game(galaxy);
+            EnemyController playerAI = new EnemyController(null, galaxy, game.getResearchManager(), game.getFogOfWar());
+
+            while (game.getTurn() < turn && !game.isGameOver()) {
+                playerAI.processTurn();
+                game.nextTurn();
+            }
+            save = SaveGame.encode(game);
+        }
+
+        @Setup(Level.Iteration)
+        public void restore() throws IOException {
+            game = SaveGame.decode(save);
+            playerAI = new EnemyController(null, game.getGalaxy(), game.getResearchManager(), game.getFogOfWar());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public Game nextTurn(GameState state) {
+        state.game.nextTurn();
+        return state.game;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public EnemyController processTurn(GameState state) {
+        state.playerAI.processTurn();
+        return state.playerAI;
+    }
+
+//    Ruchy AI gracza i tura oznaczają systemy do przeliczenia - mierzone jest tylko przeliczenie
+    @State(Scope.Benchmark)
+    public static class IncrementalFogState {
+        FogOfWar fog;
+
+        @Setup(Level.Iteration)
+        public void prepare(GameState state) {
+            state.playerAI.processTurn();
+            state.game.nextTurn();
+            fog = state.game.getFogOfWar();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public FogOfWar updateVisibilityIncremental(IncrementalFogState state) {
+        state.fog.updateVisibility();
+        return state.fog;
+    }
+
+    @State(Scope.Benchmark)
+    public static class RebuildFogState {
+        FogOfWar fog;
+
+        @Setup(Level.Iteration)
+        public void prepare(GameState state) {
+            fog = new FogOfWar(state.game.getGalaxy());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public FogOfWar updateVisibilityFullRebuild(RebuildFogState state) {
+        state.fog.updateVisibility();
+        return state.fog;
+    }
+
+    @State(Scope.Benchmark)
+    public static class PathState {
+        final StarSystem[] from = new StarSystem[PATH_QUERIES];
+        final StarSystem[] to = new StarSystem[PATH_QUERIES];
+
+        @Setup(Level.Trial)
+        public void prepare() {
+            Galaxy galaxy = GalaxyGenerator.generate(MapSize.LARGE, GAME_STARS, SEED);
+            List<StarSystem> systems = galaxy.getSystems();
+            galaxy.getRoutingTable();
+
+            SplittableRandom random = new SplittableRandom(7);
+            for (int i = 0; i < PATH_QUERIES; i++) {
+                from[i] = systems.get(random.nextInt(systems.size()));
+                to[i] = systems.get(random.nextInt(systems.size()));
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OperationsPerInvocation(PATH_QUERIES)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void findPath(PathState state, Blackhole blackhole) {
+        for (int i = 0; i < PATH_QUERIES; i++) {
+            blackhole.consume(Pathfinder.findPath(state.from[i], state.to[i]));
+        }
+    }
+
+//    Osobny system na każdą bitwę - walka usuwa floty przegranego, więc systemy powstają co iterację
+    @State(Scope.Benchmark)
+    public static class BattleState {
+        final Enemy enemy = new Enemy("Benchmark", Color.RED);
+        final ResearchManager playerRM = new ResearchManager();
+        final ResearchManager enemyRM = new ResearchManager();
+
+        Galaxy galaxy;
+        StarSystem[] systems;
+
+        @Setup(Level.Iteration)
+        public void prepare() {
+            SplittableRandom random = new SplittableRandom(11);
+            ShipType[] warships = {ShipType.FIGHTER, ShipType.DESTROYER, ShipType.CRUISER, ShipType.BATTLESHIP};
+
+            galaxy = new Galaxy();
+            galaxy.addEnemy(enemy);
+
+            systems = new StarSystem[BATTLES];
+            for (int i = 0; i < BATTLES; i++) {
+                StarSystem system = new StarSystem("B" + i, 0, 0);
+                galaxy.addSystem(system);
+                for (Enemy owner : new Enemy[]{null, enemy}) {
+                    Fleet fleet = new Fleet(system, owner);
+                    for (ShipType type : warships) {
+                        fleet.addShips(type, random.nextInt(20));
+                    }
+                    fleet.addShips(ShipType.FIGHTER, 1);
+                    system.addFleet(fleet);
+                }
+                systems[i] = system;
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public void resolveBattle(BattleState state, Blackhole blackhole) {
+        for (int i = 0; i < BATTLES; i++) {
+            CombatRecord record = CombatResolver.resolveBattle(state.galaxy, state.systems[i], 1, i,
+                    owner -> owner == null ? state.playerRM : state.enemyRM);
+            blackhole.consume(record);
+        }
+    }
+
+//    Flota gracza atakuje system z flotą wroga i jego posterunkiem - obie strony po ok. 40 statków
+    @State(Scope.Benchmark)
+    public static class PredictionState {
+        final ResearchManager playerRM = new ResearchManager();
+        final ResearchManager enemyRM = new ResearchManager();
+
+        Fleet attacker;
+        StarSystem target;
+
+        @Setup(Level.Trial)
+        public void prepare() {
+            Enemy enemy = new Enemy("Benchmark", Color.RED);
+            StarSystem from = new StarSystem("Start", 0, 0);
+            target = new StarSystem("Cel", 10, 0);
+            attacker = new Fleet(from, null);
+            Fleet defender = new Fleet(target, enemy);
+            for (Fleet fleet : new Fleet[]{attacker, defender}) {
+                fleet.addShips(ShipType.FIGHTER, 20);
+                fleet.addShips(ShipType.DESTROYER, 12);
+                fleet.addShips(ShipType.CRUISER, 8);
+            }
+            from.addFleet(attacker);
+            target.addFleet(defender);
+            target.setBattleStation(new SpaceInstallation(SpaceInstallationType.BATTLE_STATION, enemy));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public CombatPredictor.Prediction predictAttack(PredictionState state) {
+        return CombatPredictor.predictAttack(state.attacker, state.target, state.playerRM, state.enemyRM);
+    }
+
+//    Widok startowy gracza (kamera na Sol) rysowany do obrazu poza ekranem. Galaktyka powstaje raz,
+//    panel co iterację - pierwsza klatka buduje kafelki statycznej warstwy, kolejne tylko je kopiują,
+//    tak jak przy przesuwaniu widoku.
+    @State(Scope.Benchmark)
+    public static class FrameState {
+        @Param({"1000", "10000"})
+        public int stars;
+
+        final BufferedImage frame = new BufferedImage(FRAME_WIDTH, FRAME_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Game game;
+        GalaxyPanel panel;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            game = new Game(GalaxyGenerator.generate(MapSize.LARGE, stars, SEED));
+        }
+
+        @Setup(Level.Iteration)
+        public void createPanel() {
+            panel = new GalaxyPanel(null, game);
+            panel.setSize(FRAME_WIDTH, FRAME_HEIGHT);
+            try {
+                // Kamera ustawia się na Sol w wątku Swinga
+                SwingUtilities.invokeAndWait(() -> {});
+            } catch (InterruptedException | InvocationTargetException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        int paint() {
+            Graphics2D g2 = frame.createGraphics();
+            try {
+                panel.paint(g2);
+            } finally {
+                g2.dispose();
+            }
+            return frame.getRGB(FRAME_WIDTH / 2, FRAME_HEIGHT / 2);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WarmFrameState {
+        @Setup(Level.Iteration)
+        public void paintFirst(FrameState state) {
+            state.paint();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 7)
+    public int paintFirstFrame(FrameState state) {
+        return state.paint();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int paintWarmFrame(FrameState state, WarmFrameState warm) {
+        return state.paint();
+    }
+
+//    Stan zapisu nie zmienia się - jedna gra na wszystkie iteracje
+    @State(Scope.Benchmark)
+    public static class SaveState {
+        Game game;
+        byte[] data;
+
+        @Setup(Level.Trial)
+        public void play() {
+            Galaxy galaxy = GalaxyGenerator.generate(MapSize.LARGE, SAVE_STARS, SEED);
+            game = new Game(galaxy);
+            EnemyController playerAI = new EnemyController(null, galaxy, game.getResearchManager(), game.getFogOfWar());
+            while (game.getTurn() < SAVE_TURN && !game.isGameOver()) {
+                playerAI.processTurn();
+                game.nextTurn();
+            }
+            data = SaveGame.encode(game);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public byte[] saveGameEncode(SaveState state) {
+        return SaveGame.encode(state.game);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Game saveGameDecode(SaveState state) throws IOException {
+        return SaveGame.decode(state.data);
+    }
+}
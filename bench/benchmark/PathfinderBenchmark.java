@@ -0,0 +1,96 @@
+package benchmark;
+
+import controller.GalaxyGenerator;
+import controller.Pathfinder;
+import model.galaxy.Galaxy;
+import model.galaxy.MapSize;
+import model.galaxy.RoutingTable;
+import model.galaxy.StarSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Porównanie zwykłego BFS z tablicą tras galaktyki dla losowych par systemów, wynik w ns na zapytanie.
+// Użycie: gradle :jmh:jmh -Pjmh.args="PathfinderBenchmark -p stars=500"
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class PathfinderBenchmark {
+
+    private static final int QUERIES = 20_000;
+
+    @Param({"40", "500", "2000"})
+    public int stars;
+
+    private Galaxy galaxy;
+    private RoutingTable table;
+    private StarSystem[] from;
+    private StarSystem[] to;
+    private StarSystem[] buffer;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        galaxy = GalaxyGenerator.generate(MapSize.LARGE, stars, 42L);
+        List<StarSystem> systems = galaxy.getSystems();
+        table = galaxy.getRoutingTable();
+
+        from = new StarSystem[QUERIES];
+        to = new StarSystem[QUERIES];
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < QUERIES; i++) {
+            from[i] = systems.get(random.nextInt(systems.size()));
+            to[i] = systems.get(random.nextInt(systems.size()));
+        }
+
+        buffer = new StarSystem[systems.size()];
+    }
+
+//    Budowa tablicy osobno - generator już ją zbudował (wybór domu AI), więc tu liczona od zera
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public RoutingTable buildTable() {
+        return RoutingTable.build(galaxy);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void bfs(Blackhole blackhole) {
+        for (int i = 0; i < QUERIES; i++) {
+            blackhole.consume(Pathfinder.findPathBfs(from[i], to[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void findPath(Blackhole blackhole) {
+        for (int i = 0; i < QUERIES; i++) {
+            blackhole.consume(Pathfinder.findPath(from[i], to[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void fillPath(Blackhole blackhole) {
+        for (int i = 0; i < QUERIES; i++) {
+            blackhole.consume(table.fillPath(from[i], to[i], buffer));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Autozapis w tle. Migawką gry jest gotowy bajtowy zapis (SaveGame.encode) - liczony w wątku gry,
+// potem niezmienny, więc plik i fsync obsługuje osobny wątek. Czeka co najwyżej jedna migawka:
+// jeśli poprzedni zapis jeszcze trwa, nowa zastępuje oczekującą zamiast ustawiać się w kolejce.
+// Pliki trafiają kolejno do slotów autosave-0 .. autosave-(n-1), najstarszy jest nadpisywany.
+public class AutosaveService {
+
+    public static final String FILE_PREFIX = "autosave-";
+    public static final String FILE_EXTENSION = ".gss";
+    public static final String JOURNAL_FILE = "replay.gsr";
+
+    private static class Snapshot {
+        final int turn;
+        final byte[] data;
+        final ReplayJournal journal;
+
+        Snapshot(int turn, byte[] data, ReplayJournal journal) {
+            this.turn = turn;
+            this.data = data;
+            this.journal = journal;
+        }
+    }
+
+    private final Path directory;
+    private final int slots;
+
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private final Object idleLock = new Object();
+
+    private int nextSlot;
+    private volatile int lastSavedTurn = -1;
+    private volatile IOException lastError;
+
+    public AutosaveService(Path directory, int slots) {
+        if (slots < 1) {
+            throw new IllegalArgumentException("Autozapis potrzebuje przynajmniej jednego slotu");
+        }
+        this.directory = directory;
+        this.slots = slots;
+        this.nextSlot = oldestSlot();
+    }
+
+//    Po ponownym uruchomieniu zaczynamy od slotu, który jest pusty albo najdawniej zapisany
+    private int oldestSlot() {
+        int oldest = 0;
+        long oldestTime = Long.MAX_VALUE;
+
+        for (int slot = 0; slot < slots; slot++) {
+            Path file = directory.resolve(FILE_PREFIX + slot + FILE_EXTENSION);
+            try {
+                long time = Files.getLastModifiedTime(file).toMillis();
+                if (time < oldestTime) {
+                    oldest = slot;
+                    oldestTime = time;
+                }
+            } catch (IOException e) {
+                return slot;
+            }
+        }
+        return oldest;
+    }
+
+//    Domyślny katalog autozapisów w katalogu domowym użytkownika
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".galactic-settlers", "autosave");
+    }
+
+//    Wywoływane w wątku gry - kosztuje tylko zakodowanie stanu, reszta dzieje się w tle
+    public void submit(Game game) {
+        // Dziennik nie jest kodowany tutaj - wątek zapisu dopisze do pliku tylko nowe wpisy
+        Snapshot snapshot = new Snapshot(game.getTurn(), SaveGame.encode(game), game.getJournal());
+        pending.set(snapshot);
+
+        if (writing.compareAndSet(false, true)) {
+            Thread writer = new Thread(this::drain, "autosave");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Snapshot snapshot;
+            while ((snapshot = pending.getAndSet(null)) != null) {
+                write(snapshot);
+            }
+
+            writing.set(false);
+
+            // Migawka mogła przyjść po ostatnim sprawdzeniu, ale przed zwolnieniem flagi
+            if (pending.get() == null || !writing.compareAndSet(false, true)) {
+                break;
+            }
+        }
+
+        synchronized (idleLock) {
+            idleLock.notifyAll();
+        }
+    }
+
+    private void write(Snapshot snapshot) {
+        try {
+            Files.createDirectories(directory);
+
+            writeFile(directory.resolve(FILE_PREFIX + nextSlot + FILE_EXTENSION), snapshot.data);
+            if (snapshot.journal != null) {
+                snapshot.journal.appendTo(directory.resolve(JOURNAL_FILE));
+            }
+
+            nextSlot = (nextSlot + 1) % slots;
+            lastSavedTurn = snapshot.turn;
+            lastError = null;
+        } catch (IOException e) {
+            lastError = e;
+            System.err.println("Autozapis tury " + snapshot.turn + " nie powiódł się: " + e.getMessage());
+        }
+    }
+
+    private void writeFile(Path target, byte[] data) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        // Podmiana po pełnym zapisie - przerwany zapis nie psuje poprzedniej zawartości pliku
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+//    Czeka na zapisanie oczekującej migawki (np. przed zamknięciem gry)
+    public void flush() throws InterruptedException {
+        synchronized (idleLock) {
+            while (writing.get() || pending.get() != null) {
+                idleLock.wait(100);
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public int getLastSavedTurn() {
+        return lastSavedTurn;
+    }
+
+    public IOException getLastError() {
+        return lastError;
+    }
+}
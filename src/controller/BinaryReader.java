@@ -0,0 +1,66 @@
+package controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Odczyt formatu BinaryWriter - błędy danych jako IllegalStateException
+class BinaryReader {
+    private final byte[] data;
+    private int position;
+
+    BinaryReader(byte[] data) {
+        this.data = data;
+    }
+
+    int readByte() {
+        if (position >= data.length) {
+            throw new IllegalStateException("Niespodziewany koniec pliku zapisu");
+        }
+        return data[position++] & 0xFF;
+    }
+
+    boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    int readInt() {
+        return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+    }
+
+    long readLong() {
+        return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    int readVarInt() {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IllegalStateException("Niepoprawna liczba w pliku zapisu");
+    }
+
+    int readSignedVarInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    String readString() {
+        return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    byte[] readBytes() {
+        int length = readVarInt();
+        if (length < 0 || length > data.length - position) {
+            throw new IllegalStateException("Niespodziewany koniec pliku zapisu");
+        }
+        byte[] value = Arrays.copyOfRange(data, position, position + length);
+        position += length;
+        return value;
+    }
+
+    boolean hasMore() {
+        return position < data.length;
+    }
+}
@@ -0,0 +1,91 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Walki z ostatnich tur w buforze cyklicznym: kubełek tury t leży pod indeksem t % capacity
+// i nadpisuje walki sprzed capacity tur, więc pamięć nie rośnie z długością gry.
+public class CombatHistory {
+
+    public static final int DEFAULT_TURNS = 100;
+
+    private static final CombatRecord[] NONE = new CombatRecord[0];
+
+    private final CombatRecord[][] buckets;
+    private final int[] bucketTurns;
+
+    public CombatHistory() {
+        this(DEFAULT_TURNS);
+    }
+
+    public CombatHistory(int turns) {
+        if (turns < 1) {
+            throw new IllegalArgumentException("Historia walk musi obejmować przynajmniej jedną turę");
+        }
+        this.buckets = new CombatRecord[turns][];
+        this.bucketTurns = new int[turns];
+        Arrays.fill(bucketTurns, -1);
+    }
+
+//    Walki jednej tury - także pusta lista, żeby wypchnąć z bufora turę sprzed capacity tur
+    synchronized void record(int turn, List<CombatRecord> records) {
+        int index = Math.floorMod(turn, buckets.length);
+        buckets[index] = records.isEmpty() ? NONE : records.toArray(NONE);
+        bucketTurns[index] = turn;
+    }
+
+    public synchronized List<CombatRecord> getTurn(int turn) {
+        int index = Math.floorMod(turn, buckets.length);
+        if (bucketTurns[index] != turn) {
+            return List.of();
+        }
+        return List.of(buckets[index]);
+    }
+
+//    Wszystkie zapamiętane walki od najnowszej tury
+    public List<CombatRecord> getRecords() {
+        return find(record -> true);
+    }
+
+    public synchronized List<CombatRecord> find(Predicate<CombatRecord> filter) {
+        int newest = -1;
+        for (int turn : bucketTurns) {
+            newest = Math.max(newest, turn);
+        }
+
+        List<CombatRecord> result = new ArrayList<>();
+        for (int turn = newest; turn >= 0 && turn > newest - buckets.length; turn--) {
+            int index = Math.floorMod(turn, buckets.length);
+            if (bucketTurns[index] != turn) continue;
+
+            for (CombatRecord record : buckets[index]) {
+                if (filter.test(record)) {
+                    result.add(record);
+                }
+            }
+        }
+        return result;
+    }
+
+    public List<CombatRecord> findBySystem(int systemId) {
+        return find(record -> record.getSystemId() == systemId);
+    }
+
+//    Po cofnięciu tury: przejmuje historię poprzedniego obiektu gry bez tur późniejszych niż lastTurn
+    synchronized void restoreFrom(CombatHistory other, int lastTurn) {
+        synchronized (other) {
+            for (int i = 0; i < other.buckets.length; i++) {
+                int turn = other.bucketTurns[i];
+                if (turn >= 0 && turn <= lastTurn) {
+                    record(turn, List.of(other.buckets[i]));
+                }
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return buckets.length;
+    }
+}
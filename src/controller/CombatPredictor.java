@@ -0,0 +1,165 @@
+package controller;
+
+import model.Enemy;
+import model.buildings.SpaceInstallation;
+import model.galaxy.StarSystem;
+import model.ships.Fleet;
+import model.tech.ResearchManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+// Prognoza walki metodą Monte Carlo: ta sama bitwa rozgrywana wiele razy przez CombatSimulator.
+// Próby dzielone są na stałą liczbę paczek z własnymi seedami, każda paczka ma jeden symulator
+// i tylko liczniki, więc wynik nie zależy od liczby wątków, a pojedyncza próba nic nie alokuje.
+public class CombatPredictor {
+
+    public static final int DEFAULT_TRIALS = 2000;
+
+    private static final int CHUNKS = 16;
+
+    // Poniżej tej liczby strzałów na prognozę wątki kosztowałyby więcej niż same symulacje
+    private static final long PARALLEL_WORK = 200_000;
+
+    // Liczniki jednej paczki prób
+    private static final int WINS = 0;
+    private static final int LOSSES = 1;
+    private static final int OWN_SHIPS_LOST = 2;
+    private static final int ENEMY_SHIPS_LOST = 3;
+    private static final int COUNTERS = 4;
+
+    public static class Prediction {
+        public final int trials;
+        public final double winChance;
+        public final double lossChance;
+        public final double drawChance;
+        public final int ships;
+        public final int enemyShips;
+        public final double expectedLosses;
+        public final double expectedEnemyLosses;
+
+        Prediction(int trials, long[] counters, int ships, int enemyShips) {
+            this.trials = trials;
+            this.winChance = (double) counters[WINS] / trials;
+            this.lossChance = (double) counters[LOSSES] / trials;
+            this.drawChance = 1.0 - winChance - lossChance;
+            this.ships = ships;
+            this.enemyShips = enemyShips;
+            this.expectedLosses = (double) counters[OWN_SHIPS_LOST] / trials;
+            this.expectedEnemyLosses = (double) counters[ENEMY_SHIPS_LOST] / trials;
+        }
+    }
+
+    public static Prediction predictAttack(Fleet attacker, StarSystem target,
+                                           ResearchManager attackerRM, ResearchManager defenderRM) {
+        return predictAttack(attacker, target, attackerRM, defenderRM, DEFAULT_TRIALS);
+    }
+
+//    Wszyscy obrońcy z badaniami defenderRM
+    public static Prediction predictAttack(Fleet attacker, StarSystem target,
+                                           ResearchManager attackerRM, ResearchManager defenderRM, int trials) {
+        Enemy owner = attacker.getOwner();
+        return predictAttack(attacker, target, o -> o == owner ? attackerRM : defenderRM, trials);
+    }
+
+    public static Prediction predictAttack(Fleet attacker, StarSystem target, Function<Enemy, ResearchManager> research) {
+        return predictAttack(attacker, target, research, DEFAULT_TRIALS);
+    }
+
+//    Co się stanie, jeśli flota wejdzie do systemu w obecnym stanie. Po stronie atakującego walczą
+//    też floty i posterunek tego samego właściciela w celu, każdy inny właściciel jest osobną stroną.
+//    Przegrana to zwycięstwo którejkolwiek z nich. null, gdy w celu nie ma z kim walczyć.
+    public static Prediction predictAttack(Fleet attacker, StarSystem target,
+                                           Function<Enemy, ResearchManager> research, int trials) {
+        List<Enemy> owners = new ArrayList<>();
+        owners.add(attacker.getOwner());
+        for (Fleet fleet : target.getFleets()) {
+            if (!owners.contains(fleet.getOwner())) {
+                owners.add(fleet.getOwner());
+            }
+        }
+        SpaceInstallation station = target.hasBattleStation() ? target.getBattleStation() : null;
+        if (station != null && !owners.contains(station.getOwner())) {
+            owners.add(station.getOwner());
+        }
+
+        CombatSimulator.Setup setup = new CombatSimulator.Setup(owners.size());
+
+        setup.addFleet(0, attacker, research.apply(attacker.getOwner()), -1);
+        for (Fleet fleet : target.getFleets()) {
+            if (fleet == attacker) continue;
+            setup.addFleet(owners.indexOf(fleet.getOwner()), fleet, research.apply(fleet.getOwner()), -1);
+        }
+        if (station != null) {
+            setup.addStation(owners.indexOf(station.getOwner()), station);
+        }
+
+        if (!setup.canFight()) {
+            return null;
+        }
+
+        long seed = CombatSimulator.seed(target.getId(), attacker.getLocation().getId(), attacker.getShipCount());
+        return predict(setup, trials, seed);
+    }
+
+    static Prediction predict(CombatSimulator.Setup setup, int trials, long seed) {
+        int chunks = Math.min(CHUNKS, trials);
+        long work = (long) trials * setup.totalSize() * CombatSimulator.MAX_ROUNDS;
+
+        IntStream chunkIds = IntStream.range(0, chunks);
+        if (work >= PARALLEL_WORK) {
+            chunkIds = chunkIds.parallel();
+        }
+
+        long[][] partial = chunkIds
+                .mapToObj(chunk -> runChunk(setup, trialsInChunk(trials, chunks, chunk), CombatSimulator.seed(seed, chunk, 0)))
+                .toArray(long[][]::new);
+
+        long[] counters = new long[COUNTERS];
+        for (long[] chunk : partial) {
+            for (int i = 0; i < COUNTERS; i++) {
+                counters[i] += chunk[i];
+            }
+        }
+        return new Prediction(trials, counters, setup.ships(0), opponentShips(setup));
+    }
+
+    private static int opponentShips(CombatSimulator.Setup setup) {
+        int ships = 0;
+        for (int side = 1; side < setup.sides(); side++) {
+            ships += setup.ships(side);
+        }
+        return ships;
+    }
+
+    private static int opponentShipsAlive(CombatSimulator.Setup setup, CombatSimulator simulator) {
+        int ships = 0;
+        for (int side = 1; side < setup.sides(); side++) {
+            ships += simulator.shipsAlive(side);
+        }
+        return ships;
+    }
+
+    private static int trialsInChunk(int trials, int chunks, int chunk) {
+        return trials / chunks + (chunk < trials % chunks ? 1 : 0);
+    }
+
+    private static long[] runChunk(CombatSimulator.Setup setup, int trials, long seed) {
+        CombatSimulator simulator = new CombatSimulator();
+        long[] counters = new long[COUNTERS];
+        int opponentShips = opponentShips(setup);
+
+        for (int trial = 0; trial < trials; trial++) {
+            simulator.run(setup, CombatSimulator.seed(seed, trial, 1));
+
+            int winner = simulator.winner();
+            if (winner == 0) counters[WINS]++;
+            if (winner > 0) counters[LOSSES]++;
+            counters[OWN_SHIPS_LOST] += setup.ships(0) - simulator.shipsAlive(0);
+            counters[ENEMY_SHIPS_LOST] += opponentShips - opponentShipsAlive(setup, simulator);
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,136 @@
+package controller;
+
+import model.galaxy.Galaxy;
+
+// Zapis jednej walki w postaci liczb: system, strony, ich siły przed i po walce oraz los posterunku.
+// Tekst raportu powstaje dopiero w format, więc historia wielu tur nie trzyma gotowych napisów.
+// Strony opisane są kodem właściciela jak w zapisie gry: 0 = gracz, n = n-ty przeciwnik galaktyki.
+public class CombatRecord {
+
+    public static final int PLAYER = 0;
+
+    private final int turn;
+    private final int systemId;
+    private final int[] owners;
+    private final int[] shipsBefore;
+    private final int[] shipsAfter;
+    private final int[] attack;
+    private final int[] defense;
+    private final int rounds;
+    private final int winner;  // indeks strony albo -1
+
+    // Strona posterunku (-1 gdy go nie było), HP po walce (0 = zniszczony) i maksimum
+    private final int stationSide;
+    private final int stationHP;
+    private final int stationMaxHP;
+
+    CombatRecord(int turn, int systemId, int[] owners, int[] shipsBefore, int[] shipsAfter,
+                 int[] attack, int[] defense, int rounds, int winner,
+                 int stationSide, int stationHP, int stationMaxHP) {
+        this.turn = turn;
+        this.systemId = systemId;
+        this.owners = owners;
+        this.shipsBefore = shipsBefore;
+        this.shipsAfter = shipsAfter;
+        this.attack = attack;
+        this.defense = defense;
+        this.rounds = rounds;
+        this.winner = winner;
+        this.stationSide = stationSide;
+        this.stationHP = stationHP;
+        this.stationMaxHP = stationMaxHP;
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    public int getSystemId() {
+        return systemId;
+    }
+
+    public int getSideCount() {
+        return owners.length;
+    }
+
+    public int getOwner(int side) {
+        return owners[side];
+    }
+
+    public int getShipsBefore(int side) {
+        return shipsBefore[side];
+    }
+
+    public int getShipsAfter(int side) {
+        return shipsAfter[side];
+    }
+
+    public int getLosses(int side) {
+        return shipsBefore[side] - shipsAfter[side];
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+//    Indeks zwycięskiej strony albo -1 przy walce nierozstrzygniętej lub wzajemnym zniszczeniu
+    public int getWinner() {
+        return winner;
+    }
+
+    public boolean involves(int owner) {
+        for (int side : owners) {
+            if (side == owner) return true;
+        }
+        return false;
+    }
+
+    public boolean hasStation() {
+        return stationSide >= 0;
+    }
+
+    public boolean isStationDestroyed() {
+        return stationSide >= 0 && stationHP == 0;
+    }
+
+    public String format(Galaxy galaxy) {
+        StringBuilder report = new StringBuilder();
+        report.append(" WALKA W SYSTEMIE ").append(galaxy.getSystem(systemId).getName()).append(" \n");
+        for (int side = 0; side < owners.length; side++) {
+            report.append("Siły ").append(ownerName(galaxy, side)).append(": ").append(shipsBefore[side])
+                    .append(" statków | Atak ").append(attack[side]).append(", Obrona ").append(defense[side]).append("\n");
+        }
+        report.append("Rundy walki: ").append(rounds).append("\n\n");
+
+        if (hasStation()) {
+            String whose = owners[stationSide] == PLAYER ? "Twój posterunek bojowy" : "Posterunek bojowy " + ownerName(galaxy, stationSide);
+            if (isStationDestroyed()) {
+                report.append(whose).append(" został zniszczony!\n");
+            } else {
+                report.append(whose).append(": HP ").append(stationHP).append("/").append(stationMaxHP).append("\n");
+            }
+        }
+
+        int survivors = 0;
+        for (int side = 0; side < owners.length; side++) {
+            report.append("Straty ").append(ownerName(galaxy, side)).append(": ").append(getLosses(side))
+                    .append(" statków (zostało ").append(shipsAfter[side]).append(")\n");
+            survivors += shipsAfter[side];
+        }
+
+        if (winner >= 0) {
+            report.append("\nZWYCIĘZCA: ")
+                    .append(owners[winner] == PLAYER ? "Gracz" : galaxy.getOwner(owners[winner]).getName()).append("\n");
+        } else if (survivors > 0 || (hasStation() && !isStationDestroyed())) {
+            report.append("\nWalka nierozstrzygnięta - ").append(owners.length == 2 ? "obie strony pozostają" : "strony pozostają")
+                    .append(" w systemie\n");
+        } else {
+            report.append(owners.length == 2 ? "\nObie strony zostały zniszczone\n" : "\nWszystkie strony zostały zniszczone\n");
+        }
+        return report.toString();
+    }
+
+    private String ownerName(Galaxy galaxy, int side) {
+        return owners[side] == PLAYER ? "gracza" : "wroga (" + galaxy.getOwner(owners[side]).getName() + ")";
+    }
+}
@@ -2,177 +2,200 @@ package controller;
 
 import model.*;
 import model.buildings.SpaceInstallation;
+import model.galaxy.Galaxy;
 import model.galaxy.StarSystem;
 import model.orbits.OrbitSlot;
 import model.orbits.planets.Planet;
 import model.ships.Fleet;
+import model.ships.ShipType;
 import model.tech.ResearchManager;
 
 import java.util.*;
+import java.util.function.Function;
 
 public class CombatResolver {
 
-    public static class CombatResult {
-        public final Fleet winner;
-        public final Fleet loser;
-        public final String report;
+    private static final ShipType[] SHIP_TYPES = ShipType.values();
 
-        public CombatResult(Fleet winner, Fleet loser, String report) {
-            this.winner = winner;
-            this.loser = loser;
-            this.report = report;
-        }
+//    Seed walki w danym systemie i turze - rozgrywka pozostaje powtarzalna (zapis, dziennik),
+//    a systemy można rozliczać równolegle w dowolnej kolejności
+    public static long battleSeed(long gameSeed, int turn, StarSystem system) {
+        return CombatSimulator.seed(gameSeed, turn, system.getId());
     }
 
-    public static CombatResult resolveBattle(StarSystem system, ResearchManager playerRM, ResearchManager enemyRM) {
-        List<Fleet> playerFleets = new ArrayList<>();
-        List<Fleet> enemyFleets = new ArrayList<>();
+//    Czy w systemie są siły (floty albo posterunek) przynajmniej dwóch właścicieli - bez alokacji,
+//    do wyboru systemów do walki
+    public static boolean isContested(StarSystem system) {
+        boolean present = false;
+        Enemy first = null;
 
         for (Fleet fleet : system.getFleets()) {
-            if (fleet.getOwner() == null) {
-                playerFleets.add(fleet);
-            } else {
-                enemyFleets.add(fleet);
+            if (!present) {
+                present = true;
+                first = fleet.getOwner();
+            } else if (fleet.getOwner() != first) {
+                return true;
             }
         }
+        return present && system.hasBattleStation() && system.getBattleStation().getOwner() != first;
+    }
 
-        if (playerFleets.isEmpty() || enemyFleets.isEmpty()) {
+//    Walka rundowa (CombatSimulator) między siłami wszystkich właścicieli obecnych w systemie - każdy
+//    właściciel to osobna strona, strony ułożone według kodu właściciela (gracz pierwszy). Zniszczone
+//    statki znikają z flot, posterunek zachowuje pozostałe HP. Ocalałe statki wracają do pełnej
+//    sprawności - flota pamięta tylko liczbę statków każdego typu.
+    public static CombatRecord resolveBattle(Galaxy galaxy, StarSystem system, int turn, long seed,
+                                             Function<Enemy, ResearchManager> research) {
+        // Posterunek broni systemu także bez floty
+        if (!isContested(system)) {
             return null;
         }
 
-        int playerAttack = 0;
-        int playerDefense = 0;
-        int enemyAttack = 0;
-        int enemyDefense = 0;
+        SpaceInstallation station = system.hasBattleStation() ? system.getBattleStation() : null;
 
-        int playerShipsBeforeBattle = 0;
-        int enemyShipsBeforeBattle = 0;
-
-        // Sumowanie statystyk wszystkich flot gracza
-        for (Fleet fleet : playerFleets) {
-            playerAttack += fleet.getTotalAttack(playerRM);
-            playerDefense += fleet.getTotalDefense(playerRM);
-            playerShipsBeforeBattle += fleet.getShipCount();
+        int[] sideOf = new int[galaxy.getOwnerCount()];
+        for (Fleet fleet : system.getFleets()) {
+            sideOf[ownerCode(galaxy, fleet.getOwner())] = 1;
+        }
+        if (station != null) {
+            sideOf[ownerCode(galaxy, station.getOwner())] = 1;
         }
 
-        // Sumowanie statystyk wszystkich flot wroga
-        for (Fleet fleet : enemyFleets) {
-            enemyAttack += fleet.getTotalAttack(enemyRM);
-            enemyDefense += fleet.getTotalDefense(enemyRM);
-            enemyShipsBeforeBattle += fleet.getShipCount();
+        int sides = 0;
+        for (int code = 0; code < sideOf.length; code++) {
+            sideOf[code] = sideOf[code] > 0 ? sides++ : -1;
         }
 
-        // Posterunki bojowe dodają moc do swojej strony
-        if (system.hasBattleStation()) {
-            SpaceInstallation station = system.getBattleStation();
-            if (station.getOwner() == null) {
-                playerAttack += station.getAttack();
-                playerDefense += station.getDefense();
-            } else {
-                enemyAttack += station.getAttack();
-                enemyDefense += station.getDefense();
+        int[] owners = new int[sides];
+        List<List<Fleet>> fleets = new ArrayList<>(sides);
+        for (int code = 0; code < sideOf.length; code++) {
+            if (sideOf[code] >= 0) {
+                owners[sideOf[code]] = code;
+                fleets.add(new ArrayList<>());
             }
         }
+        for (Fleet fleet : system.getFleets()) {
+            fleets.get(sideOf[galaxy.getOwnerCode(fleet.getOwner())]).add(fleet);
+        }
 
-        int playerPower = playerAttack + playerDefense;
-        int enemyPower = enemyAttack + enemyDefense;
-
-        Fleet winner;
-        Fleet loser;
-        boolean playerWon = playerPower > enemyPower;
-
-        StringBuilder report = new StringBuilder();
-        report.append(" WALKA W SYSTEMIE ").append(system.getName()).append(" \n");
-        report.append("Siły gracza: ").append(playerShipsBeforeBattle).append(" statków | Atak ").append(playerAttack).append(", Obrona ").append(playerDefense).append(" (MOC: ").append(playerPower).append(")\n");
-        report.append("Siły wroga: ").append(enemyShipsBeforeBattle).append(" statków | Atak ").append(enemyAttack).append(", Obrona ").append(enemyDefense).append(" (MOC: ").append(enemyPower).append(")\n\n");
+        int stationSide = station == null ? -1 : sideOf[galaxy.getOwnerCode(station.getOwner())];
 
-//        przegrany traci wszystkie statki i ewentualny posterunek z systemu
-        if (playerWon) {
-            winner = playerFleets.get(0);
-            loser = enemyFleets.get(0);
+        CombatSimulator.Setup setup = new CombatSimulator.Setup(sides);
+        int[] attack = new int[sides];
+        int[] defense = new int[sides];
 
-            // Zniszczenie wszystkich wrogich statków
-            for (Fleet fleet : enemyFleets) {
-                fleet.getShips().clear();
+        for (int side = 0; side < sides; side++) {
+            ResearchManager rm = research.apply(galaxy.getOwner(owners[side]));
+            List<Fleet> sideFleets = fleets.get(side);
+            for (int i = 0; i < sideFleets.size(); i++) {
+                Fleet fleet = sideFleets.get(i);
+                setup.addFleet(side, fleet, rm, i);
+                attack[side] += fleet.getTotalAttack(rm);
+                defense[side] += fleet.getTotalDefense(rm);
             }
+        }
+        if (station != null) {
+            setup.addStation(stationSide, station);
+            attack[stationSide] += station.getAttack();
+            defense[stationSide] += station.getDefense();
+        }
 
-            // Zniszczenie wrogiego posterunku
-            if (system.hasBattleStation() && system.getBattleStation().getOwner() != null) {
-                system.setBattleStation(null);
-                report.append("Posterunek bojowy wroga został zniszczony!\n");
-            }
+        // Np. same statki kolonizacyjne po wszystkich stronach - nikt nie ma czym strzelać
+        if (!setup.canFight()) {
+            return null;
+        }
 
-            report.append("Zniszczono wszystkie wrogie statki (").append(enemyShipsBeforeBattle).append(")\n");
-            report.append("\nZWYCIĘZCA: Gracz\n");
-        } else {
-            winner = enemyFleets.get(0);
-            loser = playerFleets.get(0);
+        CombatSimulator battle = new CombatSimulator();
+        battle.run(setup, seed);
 
-            for (Fleet fleet : playerFleets) {
-                fleet.getShips().clear();
-            }
+        for (int side = 0; side < sides; side++) {
+            applyLosses(setup, battle, side, fleets.get(side));
+        }
 
-            if (system.hasBattleStation() && system.getBattleStation().getOwner() == null) {
+        int stationHP = 0;
+        int stationMaxHP = 0;
+        if (station != null) {
+            int unit = setup.size(stationSide) - 1;
+            stationMaxHP = station.getMaxHP();
+            if (battle.isAlive(stationSide, unit)) {
+                station.setCurrentHP(battle.remainingHP(stationSide, unit));
+                stationHP = station.getCurrentHP();
+            } else {
                 system.setBattleStation(null);
-                report.append("Twój posterunek bojowy został zniszczony!\n");
             }
-
-            report.append("Zniszczono wszystkie twoje statki (").append(playerShipsBeforeBattle).append(")\n");
-            report.append("\nZWYCIĘZCA: Przeciwnik\n");
         }
 
         // Usunięcie pustych flot
-        system.getFleets().removeIf(Fleet::isEmpty);
+        system.removeEmptyFleets();
+
+        int[] shipsBefore = new int[sides];
+        int[] shipsAfter = new int[sides];
+        for (int side = 0; side < sides; side++) {
+            shipsBefore[side] = setup.ships(side);
+            shipsAfter[side] = battle.shipsAlive(side);
+        }
+        return new CombatRecord(turn, system.getId(), owners, shipsBefore, shipsAfter, attack, defense,
+                battle.rounds(), battle.winner(), stationSide, stationHP, stationMaxHP);
+    }
 
-        return new CombatResult(winner, loser, report.toString());
+    private static int ownerCode(Galaxy galaxy, Enemy owner) {
+        int code = galaxy.getOwnerCode(owner);
+        if (code < 0) {
+            throw new IllegalStateException("Właściciel spoza galaktyki: " + owner.getName());
+        }
+        return code;
     }
 
-//    Określa kto kontroluje system żeby wiedzieć do kogo mają należeć ewentualne kolonie w systemie
+//    Straty zliczane na flotę i typ, potem zdejmowane jednym wywołaniem na typ
+    private static void applyLosses(CombatSimulator.Setup setup, CombatSimulator battle, int side, List<Fleet> fleets) {
+        if (fleets.isEmpty()) return;
+
+        int[][] losses = new int[fleets.size()][SHIP_TYPES.length];
+        for (int unit = 0; unit < setup.size(side); unit++) {
+            int fleet = setup.fleetIndex(side, unit);
+            if (fleet >= 0 && !battle.isAlive(side, unit)) {
+                losses[fleet][setup.unitType(side, unit)]++;
+            }
+        }
+
+        for (int i = 0; i < fleets.size(); i++) {
+            for (ShipType type : SHIP_TYPES) {
+                fleets.get(i).removeShips(type, losses[i][type.ordinal()]);
+            }
+        }
+    }
+
+//    Określa kto kontroluje system żeby wiedzieć do kogo mają należeć ewentualne kolonie w systemie.
+//    Jedyny obecny właściciel przejmuje wszystkie kolonie, bez nikogo wracają do pierwotnych
+//    właścicieli, a przy kilku stronach kontrola planet się nie zmienia.
     public static void resolveSystemControl(StarSystem system) {
-        boolean hasPlayerFleet = system.getFleets().stream().anyMatch(f -> f.getOwner() == null);
-        boolean hasEnemyFleet = system.getFleets().stream().anyMatch(f -> f.getOwner() != null);
-        boolean hasPlayerStation = system.hasBattleStation() && system.getBattleStation().getOwner() == null;
-        boolean hasEnemyStation = system.hasBattleStation() && system.getBattleStation().getOwner() != null;
-
-        Enemy systemOwner = null;
-        boolean playerControls = hasPlayerFleet || hasPlayerStation;
-        boolean enemyControls = hasEnemyFleet || hasEnemyStation;
-
-        // Określenie kontroli systemu
-        if (playerControls && !enemyControls) {
-            systemOwner = null;  // Gracz (null = gracz)
-        } else if (enemyControls && !playerControls) {
-            for (Fleet fleet : system.getFleets()) {
-                if (fleet.getOwner() != null) {
-                    systemOwner = fleet.getOwner();
-                    break;
-                }
+        boolean present = false;
+        Enemy systemOwner = null;  // null = gracz
+
+        for (Fleet fleet : system.getFleets()) {
+            if (!present) {
+                present = true;
+                systemOwner = fleet.getOwner();
+            } else if (fleet.getOwner() != systemOwner) {
+                return;
             }
-            if (systemOwner == null && hasEnemyStation) {
-                systemOwner = system.getBattleStation().getOwner();
+        }
+        if (system.hasBattleStation()) {
+            Enemy stationOwner = system.getBattleStation().getOwner();
+            if (present && stationOwner != systemOwner) {
+                return;
             }
-        } else if (playerControls && enemyControls) {
-            // obie strony obecne, nie zmieniaj kontroli planet
-            return;
+            present = true;
+            systemOwner = stationOwner;
         }
 
         // Aktualizacja właściciela planet zgodnie z kontrolą systemu
         for (OrbitSlot orbit : system.getOrbits()) {
             if (orbit.getObject() instanceof Planet planet) {
                 if (planet.isColonized()) {
-                    Enemy originalOwner = planet.getOriginalOwner();
-
-                    if (systemOwner == null && originalOwner == null) {
-                        planet.setOwner(null);
-                    } else if (systemOwner != null && originalOwner != null && systemOwner == originalOwner) {
-                        planet.setOwner(originalOwner);
-                    } else if (systemOwner == null && originalOwner != null && !playerControls) {
-                        planet.setOwner(originalOwner);
-                    } else {
-                        planet.setOwner(systemOwner);
-                    }
+                    planet.setOwner(present ? systemOwner : planet.getOriginalOwner());
                 }
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,289 @@
+package controller;
+
+import model.buildings.SpaceInstallation;
+import model.ships.Fleet;
+import model.ships.ShipType;
+import model.tech.ResearchManager;
+
+import java.util.Arrays;
+
+// Walka rundowa na płaskich tablicach. Każdy statek i posterunek to jednostka z atakiem i punktami
+// wytrzymałości (statek: obrona typu z premiami z badań, posterunek: jego currentHP). W każdej
+// rundzie każda uzbrojona jednostka strzela do losowej jednostki pozostałych stron (wszystkie strony
+// są sobie wrogie) i trafia z szansą HIT_CHANCE_PERCENT, zadając obrażenia równe swojemu atakowi.
+// Wszystkie strony strzelają równocześnie. Walka kończy się, gdy jednostki zostaną najwyżej jednej
+// stronie, nikt nie ma czym strzelać albo po MAX_ROUNDS rundach - wtedy jest nierozstrzygnięta
+// i ocalali zostają w systemie.
+//
+// Obiekt trzyma stan jednej walki i jest używany ponownie bez alokacji (jeden na wątek), a losowanie
+// to splitmix64 z podanego seeda - ta sama walka z tym samym seedem kończy się zawsze tak samo.
+final class CombatSimulator {
+
+    static final int SIDES = 2;  // walka jeden na jeden - np. prognoza ataku na pojedynczego wroga
+    static final int MAX_ROUNDS = 10;
+    static final int HIT_CHANCE_PERCENT = 60;
+
+    private static final ShipType[] TYPES = ShipType.values();
+
+    // Typ jednostki posterunku - ordinale statków zajmują 0 .. TYPES.length - 1
+    static final int STATION = TYPES.length;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // Skład bitwy przed jej rozegraniem. Po zbudowaniu tylko czytany, więc jeden opis służy
+    // zarówno prawdziwej walce, jak i równoległym symulacjom prognozy.
+    static final class Setup {
+        private final int sides;
+        private final int[][] type;
+        private final int[][] attack;
+        private final int[][] hp;
+        private final int[][] fleetIndex;
+        private final int[] size;
+        private final int[] ships;
+        private boolean armed;
+
+        Setup() {
+            this(SIDES);
+        }
+
+        Setup(int sides) {
+            this.sides = sides;
+            this.type = new int[sides][16];
+            this.attack = new int[sides][16];
+            this.hp = new int[sides][16];
+            this.fleetIndex = new int[sides][16];
+            this.size = new int[sides];
+            this.ships = new int[sides];
+        }
+
+//        fleetIndex pozwala po walce odnaleźć flotę, z której pochodzi jednostka
+        void addFleet(int side, Fleet fleet, ResearchManager research, int fleetIndex) {
+            for (ShipType shipType : TYPES) {
+                int count = fleet.countShipType(shipType);
+                if (count == 0) continue;
+
+                int shipAttack = shipType.getEffectiveAttack(research);
+                int shipHP = Math.max(1, shipType.getEffectiveDefense(research));
+                for (int i = 0; i < count; i++) {
+                    add(side, shipType.ordinal(), shipAttack, shipHP, fleetIndex);
+                }
+                ships[side] += count;
+            }
+        }
+
+        void addStation(int side, SpaceInstallation station) {
+            add(side, STATION, station.getAttack(), Math.max(1, station.getCurrentHP()), -1);
+        }
+
+        private void add(int side, int unitType, int unitAttack, int unitHP, int fleet) {
+            int n = size[side];
+            if (n == type[side].length) {
+                int capacity = n * 2;
+                type[side] = Arrays.copyOf(type[side], capacity);
+                attack[side] = Arrays.copyOf(attack[side], capacity);
+                hp[side] = Arrays.copyOf(hp[side], capacity);
+                fleetIndex[side] = Arrays.copyOf(fleetIndex[side], capacity);
+            }
+            type[side][n] = unitType;
+            attack[side][n] = unitAttack;
+            hp[side][n] = unitHP;
+            fleetIndex[side][n] = fleet;
+            size[side] = n + 1;
+            armed |= unitAttack > 0;
+        }
+
+        int sides() {
+            return sides;
+        }
+
+        int size(int side) {
+            return size[side];
+        }
+
+        int totalSize() {
+            int total = 0;
+            for (int n : size) {
+                total += n;
+            }
+            return total;
+        }
+
+        int ships(int side) {
+            return ships[side];
+        }
+
+        int unitType(int side, int unit) {
+            return type[side][unit];
+        }
+
+        int fleetIndex(int side, int unit) {
+            return fleetIndex[side][unit];
+        }
+
+//        Walka ma sens, gdy obecne są przynajmniej dwie strony i ktokolwiek ma czym strzelać
+        boolean canFight() {
+            int present = 0;
+            for (int n : size) {
+                if (n > 0) present++;
+            }
+            return present >= 2 && armed;
+        }
+    }
+
+    private int[][] hp = new int[SIDES][0];
+    private int[][] alive = new int[SIDES][0];
+    private int[] aliveCount = new int[SIDES];
+    private int[] shipsAlive = new int[SIDES];
+    private int sides;
+    private int rounds;
+    private long random;
+
+    void run(Setup setup, long seed) {
+        random = seed;
+        rounds = 0;
+        sides = setup.sides;
+
+        if (hp.length < sides) {
+            hp = Arrays.copyOf(hp, sides);
+            alive = Arrays.copyOf(alive, sides);
+            aliveCount = new int[sides];
+            shipsAlive = new int[sides];
+            for (int side = 0; side < sides; side++) {
+                if (hp[side] == null) {
+                    hp[side] = new int[0];
+                    alive[side] = new int[0];
+                }
+            }
+        }
+
+        for (int side = 0; side < sides; side++) {
+            int n = setup.size[side];
+            if (hp[side].length < n) {
+                hp[side] = new int[n];
+                alive[side] = new int[n];
+            }
+            System.arraycopy(setup.hp[side], 0, hp[side], 0, n);
+            for (int i = 0; i < n; i++) {
+                alive[side][i] = i;
+            }
+            aliveCount[side] = n;
+        }
+
+        while (rounds < MAX_ROUNDS && sidesAlive() >= 2) {
+            // Wszystkie salwy przed usunięciem zniszczonych - trafione w tej rundzie jednostki jeszcze strzelają
+            int totalAlive = 0;
+            for (int side = 0; side < sides; side++) {
+                totalAlive += aliveCount[side];
+            }
+
+            boolean fired = false;
+            for (int side = 0; side < sides; side++) {
+                fired |= fire(setup, side, totalAlive - aliveCount[side]);
+            }
+            if (!fired) break;
+
+            for (int side = 0; side < sides; side++) {
+                removeDestroyed(side);
+            }
+            rounds++;
+        }
+
+        for (int side = 0; side < sides; side++) {
+            int ships = 0;
+            for (int k = 0; k < aliveCount[side]; k++) {
+                if (setup.type[side][alive[side][k]] != STATION) ships++;
+            }
+            shipsAlive[side] = ships;
+        }
+    }
+
+//    targetCount - jednostki wszystkich pozostałych stron, numerowane strona po stronie
+    private boolean fire(Setup setup, int from, int targetCount) {
+        int[] attack = setup.attack[from];
+        int[] shooters = alive[from];
+        int shooterCount = aliveCount[from];
+
+        boolean fired = false;
+        for (int k = 0; k < shooterCount; k++) {
+            int damage = attack[shooters[k]];
+            if (damage <= 0) continue;
+            fired = true;
+
+            // Jedno losowanie na strzał: młodsza połowa decyduje o trafieniu, starsza o celu
+            long roll = nextLong();
+            if (((roll & 0xFFFFFFFFL) * 100 >>> 32) < HIT_CHANCE_PERCENT) {
+                int target = (int) (((roll >>> 32) * targetCount) >>> 32);
+                int to = from == 0 ? 1 : 0;
+                while (target >= aliveCount[to]) {
+                    target -= aliveCount[to];
+                    to++;
+                    if (to == from) to++;
+                }
+                hp[to][alive[to][target]] -= damage;
+            }
+        }
+        return fired;
+    }
+
+    private void removeDestroyed(int side) {
+        int[] units = alive[side];
+        int[] unitHP = hp[side];
+        int kept = 0;
+        for (int k = 0; k < aliveCount[side]; k++) {
+            if (unitHP[units[k]] > 0) {
+                units[kept++] = units[k];
+            }
+        }
+        aliveCount[side] = kept;
+    }
+
+    private int sidesAlive() {
+        int count = 0;
+        for (int side = 0; side < sides; side++) {
+            if (aliveCount[side] > 0) count++;
+        }
+        return count;
+    }
+
+//    Strona, która jako jedyna ma jeszcze jednostki, albo -1 (walka nierozstrzygnięta lub wzajemne zniszczenie)
+    int winner() {
+        int winner = -1;
+        for (int side = 0; side < sides; side++) {
+            if (aliveCount[side] == 0) continue;
+            if (winner >= 0) return -1;
+            winner = side;
+        }
+        return winner;
+    }
+
+    boolean isAlive(int side, int unit) {
+        return hp[side][unit] > 0;
+    }
+
+    int remainingHP(int side, int unit) {
+        return Math.max(0, hp[side][unit]);
+    }
+
+    int shipsAlive(int side) {
+        return shipsAlive[side];
+    }
+
+    int rounds() {
+        return rounds;
+    }
+
+    private long nextLong() {
+        return mix(random += GOLDEN_GAMMA);
+    }
+
+//    Seed walki wyprowadzony z kilku liczb (np. seeda gry, tury i id systemu)
+    static long seed(long base, long a, long b) {
+        return mix(mix(base + a * GOLDEN_GAMMA) + b * GOLDEN_GAMMA);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
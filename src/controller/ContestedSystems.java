@@ -0,0 +1,97 @@
+package controller;
+
+import model.galaxy.Galaxy;
+import model.galaxy.GalaxyListener;
+import model.galaxy.StarSystem;
+import model.orbits.planets.Planet;
+import model.ships.Fleet;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// Systemy do rozliczenia w fazie walk. Zdarzenia galaktyki (przylot i odlot floty, zmiana posterunku
+// albo kolonii) oznaczają system jako zmieniony - trzeba w nim ustalić kontrolę. Systemy z siłami
+// obu stron pozostają sporne i walczą co turę, dopóki któraś strona nie zniknie. Faza walk bierze
+// tylko te dwa zbiory, więc spokojna tura nie dotyka żadnego systemu.
+// Kontrola systemu zależy tylko od flot, posterunku i kolonii, więc pominięcie niezmienionych
+// systemów daje ten sam wynik co rozliczanie wszystkich.
+class ContestedSystems implements GalaxyListener {
+
+    private final Galaxy galaxy;
+
+    // Bity o indeksie id systemu; zdarzenia przychodzą także z wątków fazy ekonomii i walk
+    private final BitSet changed = new BitSet();
+    private final BitSet contested = new BitSet();
+
+    ContestedSystems(Galaxy galaxy) {
+        this.galaxy = galaxy;
+
+        // Nowa albo wczytana gra - pierwsza tura sprawdza wszystkie systemy
+        changed.set(0, galaxy.getSystems().size());
+
+        galaxy.addListener(this);
+    }
+
+//    Systemy zmienione od ostatniej tury i sporne, w kolejności id
+    List<StarSystem> beginBatch() {
+        BitSet batch;
+        synchronized (this) {
+            batch = (BitSet) changed.clone();
+            batch.or(contested);
+            changed.clear();
+        }
+
+        List<StarSystem> systems = new ArrayList<>(batch.cardinality());
+        for (int id = batch.nextSetBit(0); id >= 0; id = batch.nextSetBit(id + 1)) {
+            systems.add(galaxy.getSystem(id));
+        }
+        return systems;
+    }
+
+//    Po rozliczeniu partii: zmiany wywołane samymi walkami są już uwzględnione, a sporność
+//    każdego systemu z partii ustalana jest od nowa
+    void endBatch(List<StarSystem> batch) {
+        BitSet stillContested = new BitSet();
+        for (StarSystem system : batch) {
+            if (CombatResolver.isContested(system)) {
+                stillContested.set(system.getId());
+            }
+        }
+
+        synchronized (this) {
+            for (StarSystem system : batch) {
+                changed.clear(system.getId());
+                contested.clear(system.getId());
+            }
+            contested.or(stillContested);
+        }
+    }
+
+    private void markChanged(StarSystem system) {
+        if (system == null || system.getGalaxy() != galaxy) return;
+        synchronized (this) {
+            changed.set(system.getId());
+        }
+    }
+
+    @Override
+    public void fleetAdded(StarSystem system, Fleet fleet) {
+        markChanged(system);
+    }
+
+    @Override
+    public void fleetRemoved(StarSystem system, Fleet fleet) {
+        markChanged(system);
+    }
+
+    @Override
+    public void colonyChanged(StarSystem system, Planet planet) {
+        markChanged(system);
+    }
+
+    @Override
+    public void installationChanged(StarSystem system) {
+        markChanged(system);
+    }
+}
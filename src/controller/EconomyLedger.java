@@ -0,0 +1,270 @@
+package controller;
+
+import model.Enemy;
+import model.galaxy.Galaxy;
+import model.galaxy.GalaxyListener;
+import model.galaxy.StarSystem;
+import model.orbits.AsteroidField;
+import model.orbits.GasGiant;
+import model.orbits.OrbitSlot;
+import model.orbits.planets.Planet;
+import model.ships.Fleet;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Bilans imperiów utrzymywany na bieżąco ze zdarzeń galaktyki. Dla każdej planety, floty i systemu
+// pamiętamy ostatnio doliczony wkład - przy zmianie odejmujemy stary i dodajemy nowy, więc odczyt
+// przychodów, kosztów i warunków końca tury nie wymaga przeglądania galaktyki.
+public class EconomyLedger implements GalaxyListener {
+
+    public static class Account {
+        private final Enemy owner;
+
+        private int planetCredits;
+        private int planetResearch;
+        private int planetMaintenance;
+        private int installationCredits;
+        private int installationResearch;
+        private int fleetMaintenance;
+
+        private int colonies;
+        private int coloniesWithoutQueue;
+        private int coloniesWithIdlePopulation;
+        private int fleets;
+        private int battleStations;
+
+        Account(Enemy owner) {
+            this.owner = owner;
+        }
+
+        public Enemy getOwner() { return owner; }
+
+        public int getIncome() { return planetCredits + installationCredits; }
+        public int getResearch() { return planetResearch + installationResearch; }
+        public int getPlanetMaintenance() { return planetMaintenance; }
+        public int getFleetMaintenance() { return fleetMaintenance; }
+        public int getMaintenance() { return planetMaintenance + fleetMaintenance; }
+
+        public int getColonies() { return colonies; }
+        public int getColoniesWithoutQueue() { return coloniesWithoutQueue; }
+        public int getColoniesWithIdlePopulation() { return coloniesWithIdlePopulation; }
+        public int getFleets() { return fleets; }
+        public int getBattleStations() { return battleStations; }
+
+//        Czy imperium ma jeszcze cokolwiek w galaktyce
+        public boolean hasAssets() {
+            return colonies > 0 || fleets > 0 || battleStations > 0;
+        }
+    }
+
+    private static class PlanetEntry {
+        Account account;
+        int credits;
+        int research;
+        int maintenance;
+        boolean withoutQueue;
+        boolean idlePopulation;
+    }
+
+    private static class FleetEntry {
+        Account account;
+        int maintenance;
+    }
+
+    private static class SystemEntry {
+        final List<Account> accounts = new ArrayList<>();
+        final List<int[]> values = new ArrayList<>();  // {kredyty, badania, posterunki}
+    }
+
+    private final Galaxy galaxy;
+    private final List<Account> accounts = new ArrayList<>();
+
+    private final Map<Planet, PlanetEntry> planets = new IdentityHashMap<>();
+    private final Map<Fleet, FleetEntry> fleets = new IdentityHashMap<>();
+    private final Map<StarSystem, SystemEntry> installations = new IdentityHashMap<>();
+
+    public EconomyLedger(Galaxy galaxy) {
+        this.galaxy = galaxy;
+
+        accounts.add(new Account(null));
+        for (Enemy enemy : galaxy.getEnemies()) {
+            accounts.add(new Account(enemy));
+        }
+
+        rebuild();
+        galaxy.addListener(this);
+    }
+
+    public synchronized Account getAccount(Enemy owner) {
+        return accountOf(owner);
+    }
+
+    public Account getPlayerAccount() {
+        return getAccount(null);
+    }
+
+//    Pełne przeliczenie - tylko przy tworzeniu, później wystarczą zdarzenia
+    private synchronized void rebuild() {
+        for (StarSystem system : galaxy.getSystems()) {
+            for (OrbitSlot orbit : system.getOrbits()) {
+                if (orbit.getObject() instanceof Planet planet) {
+                    refreshPlanet(planet);
+                }
+            }
+            for (Fleet fleet : system.getFleets()) {
+                refreshFleet(fleet, true);
+            }
+            refreshInstallations(system);
+        }
+    }
+
+    private Account accountOf(Enemy owner) {
+        for (Account account : accounts) {
+            if (account.owner == owner) return account;
+        }
+
+        Account account = new Account(owner);
+        accounts.add(account);
+        return account;
+    }
+
+    private void refreshPlanet(Planet planet) {
+        PlanetEntry old = planets.remove(planet);
+        if (old != null) {
+            applyPlanet(old, -1);
+        }
+
+        if (!planet.isColonized()) return;
+
+        PlanetEntry entry = new PlanetEntry();
+        entry.account = accountOf(planet.getOwner());
+        entry.credits = planet.getCredits();
+        entry.research = planet.getResearch();
+        entry.maintenance = planet.getMaintenanceCost();
+        entry.withoutQueue = planet.getBuildQueue().isEmpty();
+        entry.idlePopulation = !planet.isPopulationFullyAssigned();
+
+        planets.put(planet, entry);
+        applyPlanet(entry, 1);
+    }
+
+    private void applyPlanet(PlanetEntry entry, int sign) {
+        Account account = entry.account;
+        account.planetCredits += sign * entry.credits;
+        account.planetResearch += sign * entry.research;
+        account.planetMaintenance += sign * entry.maintenance;
+        account.colonies += sign;
+        if (entry.withoutQueue) account.coloniesWithoutQueue += sign;
+        if (entry.idlePopulation) account.coloniesWithIdlePopulation += sign;
+    }
+
+    private void refreshFleet(Fleet fleet, boolean present) {
+        FleetEntry old = fleets.remove(fleet);
+        if (old != null) {
+            old.account.fleetMaintenance -= old.maintenance;
+            old.account.fleets--;
+        }
+
+        if (!present) return;
+
+        FleetEntry entry = new FleetEntry();
+        entry.account = accountOf(fleet.getOwner());
+        entry.maintenance = fleet.getMaintenanceCost();
+
+        fleets.put(fleet, entry);
+        entry.account.fleetMaintenance += entry.maintenance;
+        entry.account.fleets++;
+    }
+
+    private void refreshInstallations(StarSystem system) {
+        SystemEntry old = installations.remove(system);
+        if (old != null) {
+            applyInstallations(old, -1);
+        }
+
+        SystemEntry entry = new SystemEntry();
+        for (Account account : ownersIn(system)) {
+            int credits = system.getTotalCreditsBonus(account.owner);
+            int research = system.getTotalResearchBonus(account.owner);
+            int stations = system.hasBattleStation() && system.getBattleStation().getOwner() == account.owner ? 1 : 0;
+
+            if (credits != 0 || research != 0 || stations != 0) {
+                entry.accounts.add(account);
+                entry.values.add(new int[]{credits, research, stations});
+            }
+        }
+
+        if (entry.accounts.isEmpty()) return;
+
+        installations.put(system, entry);
+        applyInstallations(entry, 1);
+    }
+
+//    Właściciele wszystkich instalacji w systemie
+    private List<Account> ownersIn(StarSystem system) {
+        List<Account> owners = new ArrayList<>();
+        if (system.hasBattleStation()) {
+            addOwner(owners, system.getBattleStation().getOwner());
+        }
+        for (OrbitSlot orbit : system.getOrbits()) {
+            if (orbit.getObject() instanceof AsteroidField asteroid && asteroid.hasInstallation()) {
+                addOwner(owners, asteroid.getInstallation().getOwner());
+            } else if (orbit.getObject() instanceof GasGiant giant && giant.hasInstallation()) {
+                addOwner(owners, giant.getInstallation().getOwner());
+            }
+        }
+        return owners;
+    }
+
+    private void addOwner(List<Account> owners, Enemy owner) {
+        Account account = accountOf(owner);
+        if (!owners.contains(account)) {
+            owners.add(account);
+        }
+    }
+
+    private void applyInstallations(SystemEntry entry, int sign) {
+        for (int i = 0; i < entry.accounts.size(); i++) {
+            Account account = entry.accounts.get(i);
+            int[] values = entry.values.get(i);
+            account.installationCredits += sign * values[0];
+            account.installationResearch += sign * values[1];
+            account.battleStations += sign * values[2];
+        }
+    }
+
+    @Override
+    public synchronized void fleetAdded(StarSystem system, Fleet fleet) {
+        refreshFleet(fleet, true);
+    }
+
+    @Override
+    public synchronized void fleetRemoved(StarSystem system, Fleet fleet) {
+        refreshFleet(fleet, false);
+    }
+
+    @Override
+    public synchronized void fleetChanged(Fleet fleet) {
+        if (fleets.containsKey(fleet)) {
+            refreshFleet(fleet, true);
+        }
+    }
+
+    @Override
+    public synchronized void colonyChanged(StarSystem system, Planet planet) {
+        refreshPlanet(planet);
+    }
+
+    @Override
+    public synchronized void planetChanged(StarSystem system, Planet planet) {
+        refreshPlanet(planet);
+    }
+
+    @Override
+    public synchronized void installationChanged(StarSystem system) {
+        refreshInstallations(system);
+    }
+}
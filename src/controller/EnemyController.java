@@ -13,6 +13,7 @@ import model.tech.ResearchManager;
 import model.tech.Technology;
 
 import java.util.*;
+import java.util.function.Function;
 
 public class EnemyController {
 
@@ -20,6 +21,17 @@ public class EnemyController {
     private final Galaxy galaxy;
     private final ResearchManager researchManager;
 
+    // Widok przeciwnika - AI planuje tylko na podstawie tego, co odkryło (null = pełna wiedza)
+    private final FogOfWar fogOfWar;
+
+    // Badania pozostałych imperiów do prognoz walki - bez nich ich statki liczone są bez premii
+    private static final ResearchManager NO_RESEARCH = new ResearchManager();
+    private Function<Enemy, ResearchManager> opponentResearch = owner -> NO_RESEARCH;
+
+    // Atak tylko przy dużej szansie wygranej; prognoza AI na mniejszej liczbie prób niż w interfejsie
+    private static final double ATTACK_WIN_CHANCE = 0.75;
+    private static final int ATTACK_PREDICTION_TRIALS = 256;
+
     // Proporcje przydziału populacji AI
     private static final double FOOD_RATIO = 0.35;
     private static final double PRODUCTION_RATIO = 0.40;
@@ -47,15 +59,33 @@ public class EnemyController {
     );
 
     public EnemyController(Enemy enemy, Galaxy galaxy) {
+        this(enemy, galaxy, new ResearchManager());
+    }
+
+//    enemy == null steruje stroną gracza (np. w symulacji bez interfejsu)
+    public EnemyController(Enemy enemy, Galaxy galaxy, ResearchManager researchManager) {
+        this(enemy, galaxy, researchManager, null);
+    }
+
+    public EnemyController(Enemy enemy, Galaxy galaxy, ResearchManager researchManager, FogOfWar fogOfWar) {
         this.enemy = enemy;
         this.galaxy = galaxy;
-        this.researchManager = new ResearchManager();
+        this.researchManager = researchManager;
+        this.fogOfWar = fogOfWar;
     }
 
     public ResearchManager getResearchManager() {
         return researchManager;
     }
 
+    public Enemy getEnemy() {
+        return enemy;
+    }
+
+    public void setOpponentResearch(Function<Enemy, ResearchManager> opponentResearch) {
+        this.opponentResearch = opponentResearch;
+    }
+
     public void processTurn() {
         manageResearch();
         managePlanets();
@@ -68,13 +98,7 @@ public class EnemyController {
             return;
         }
 
-        List<Technology> availableTechs = new ArrayList<>();
-
-        for (Technology tech : Technology.values()) {
-            if (researchManager.canResearch(tech)) {
-                availableTechs.add(tech);
-            }
-        }
+        List<Technology> availableTechs = researchManager.getAvailableTechs();
 
         if (availableTechs.isEmpty()) {
             return;
@@ -92,8 +116,9 @@ public class EnemyController {
                 .orElse(null);
     }
 
+//    Tylko systemy z koloniami AI - z indeksu właścicieli galaktyki
     private void managePlanets() {
-        for (StarSystem system : galaxy.getSystems()) {
+        for (StarSystem system : galaxy.getColonySystems(enemy)) {
             for (OrbitSlot orbit : system.getOrbits()) {
                 if (orbit.getObject() instanceof Planet planet) {
                     if (planet.isColonized() && planet.getOwner() == enemy) {
@@ -230,7 +255,7 @@ public class EnemyController {
     }
 
     private void manageFleets() {
-        for (StarSystem system : galaxy.getSystems()) {
+        for (StarSystem system : galaxy.getFleetSystems(enemy)) {
             Fleet aiFleet = system.getFleets().stream()
                     .filter(f -> f.getOwner() == enemy)
                     .findFirst()
@@ -264,43 +289,94 @@ public class EnemyController {
             }
         }
 
-        // Duże floty pozostają w miejscu jako obrona
+        // Priorytet 3: Atak na sąsiedni system, jeśli prognoza walki jest korzystna
+        StarSystem attackTarget = findAttackTarget(fleet, currentSystem);
+        if (attackTarget != null) {
+            fleet.setDestination(attackTarget);
+            return;
+        }
+
+        // Pozostałe floty zostają w miejscu jako obrona
     }
 
-    private StarSystem findBestColonizationTarget(StarSystem from) {
-        List<StarSystem> candidates = new ArrayList<>();
+//    Widoczny sąsiedni system z wrogimi flotami lub posterunkiem, w którym flota najpewniej wygra
+    private StarSystem findAttackTarget(Fleet fleet, StarSystem from) {
+        if (fleet.getTotalAttack(researchManager) == 0) return null;
 
-        for (StarSystem system : galaxy.getSystems()) {
-            if (system == from) continue;
+        StarSystem best = null;
+        CombatPredictor.Prediction bestPrediction = null;
 
-            boolean hasHabitablePlanet = false;
-            boolean alreadyColonized = false;
+        for (StarSystem neighbor : from.getNeighbors()) {
+            if (fogOfWar != null && !fogOfWar.isSystemVisible(enemy, neighbor)) continue;
+            if (!hasHostilePresence(neighbor)) continue;
 
-            for (OrbitSlot orbit : system.getOrbits()) {
-                if (orbit.getObject() instanceof Planet planet) {
-                    if (planet.isHabitable()) {
-                        hasHabitablePlanet = true;
-                    }
-                    if (planet.isColonized()) {
-                        alreadyColonized = true;
-                        break;
-                    }
-                }
-            }
+            CombatPredictor.Prediction prediction = CombatPredictor.predictAttack(fleet, neighbor,
+                    owner -> owner == enemy ? researchManager : opponentResearch.apply(owner), ATTACK_PREDICTION_TRIALS);
+            if (prediction == null || prediction.winChance < ATTACK_WIN_CHANCE) continue;
 
-            if (hasHabitablePlanet && !alreadyColonized) {
-                candidates.add(system);
+            if (bestPrediction == null || prediction.winChance > bestPrediction.winChance
+                    || (prediction.winChance == bestPrediction.winChance
+                    && prediction.expectedLosses < bestPrediction.expectedLosses)) {
+                best = neighbor;
+                bestPrediction = prediction;
             }
         }
+        return best;
+    }
 
-        if (candidates.isEmpty()) return null;
+    private boolean hasHostilePresence(StarSystem system) {
+        if (system.hasBattleStation() && system.getBattleStation().getOwner() != enemy) {
+            return true;
+        }
+        for (Fleet other : system.getFleets()) {
+            if (other.getOwner() != enemy) return true;
+        }
+        return false;
+    }
 
-        return candidates.stream()
-                .min(Comparator.comparingDouble(from::distanceTo))
-                .orElse(null);
+//    Najbliższy odkryty system z wolną planetą nadającą się do zamieszkania - indeks przestrzenny
+//    podaje systemy od najbliższego, więc przeszukiwanie kończy się na pierwszym pasującym
+    private StarSystem findBestColonizationTarget(StarSystem from) {
+        StarSystem[] target = new StarSystem[1];
+
+        galaxy.getSpatialIndex().visitByDistance(from.getX(), from.getY(), Double.MAX_VALUE, system -> {
+            if (system == from) return true;
+            if (fogOfWar != null && !fogOfWar.isSystemExplored(enemy, system)) return true;
+
+            if (isColonizationCandidate(system)) {
+                target[0] = system;
+                return false;
+            }
+            return true;
+        });
+        return target[0];
+    }
+
+    private boolean isColonizationCandidate(StarSystem system) {
+        boolean hasHabitablePlanet = false;
+
+        for (OrbitSlot orbit : system.getOrbits()) {
+            if (orbit.getObject() instanceof Planet planet) {
+                if (planet.isHabitable()) {
+                    hasHabitablePlanet = true;
+                }
+                if (planet.isColonized()) {
+                    return false;
+                }
+            }
+        }
+        return hasHabitablePlanet;
     }
 
     private StarSystem findUnexploredSystem(StarSystem from) {
+        if (fogOfWar != null) {
+            StarSystem unexplored = fogOfWar.findNearestUnexplored(enemy, from);
+            if (unexplored != null) {
+                return unexplored;
+            }
+        }
+
+        // Wszystko odkryte (albo brak mgły) - pierwszy sąsiad bez obecności AI
         List<StarSystem> neighbors = new ArrayList<>(from.getNeighbors());
 
         for (StarSystem neighbor : neighbors) {
@@ -1,6 +1,8 @@
 package controller;
 
+import model.Enemy;
 import model.galaxy.Galaxy;
+import model.galaxy.GalaxyListener;
 import model.galaxy.StarSystem;
 import model.orbits.OrbitSlot;
 import model.orbits.planets.Planet;
@@ -9,41 +11,183 @@ import model.ships.ShipType;
 
 import java.util.*;
 
-public class FogOfWar {
+// Widoczność liczona przyrostowo, osobno dla każdego imperium: każdy system z kolonią lub flotą właściciela
+// "oświetla" systemy w promieniu 1 (albo 2 ze zwiadowcą) skoków. Dla każdego systemu pamiętamy ile źródeł
+// go widzi, więc po zmianie przeliczane są tylko systemy oznaczone jako zmienione przez zdarzenia galaktyki.
+// Gracz (owner == null) ma zawsze widok 0, przeciwnicy kolejne.
+public class FogOfWar implements GalaxyListener {
+
+    private static final int NO_SOURCE = -1;
+
+    private static class OwnerView {
+        final Enemy owner;
+
+        // Bity o indeksie id systemu
+        final BitSet visible = new BitSet();
+        final BitSet explored = new BitSet();
+
+        // Liczba źródeł widzących system i promień, z jakim każdy system aktualnie oświetla okolicę
+        int[] viewers = new int[0];
+        int[] radius = new int[0];
+
+        OwnerView(Enemy owner) {
+            this.owner = owner;
+        }
+    }
 
     private final Galaxy galaxy;
-    private final Set<StarSystem> visibleSystems = new HashSet<>();
+    private final List<OwnerView> views = new ArrayList<>();
+
+    // Systemy do przeliczenia przy następnej aktualizacji - zapisywane także z wątków fazy ekonomii
+    private final BitSet dirty = new BitSet();
+
+    // Połączenia, dla których liczone są promienie - inne tablice oznaczają przebudowę od zera
+    private int[] laneOffsets;
+
+    // Bufory dla przeglądania sąsiadów i znacznik odwiedzin w bieżącym przeglądaniu
+    private int[] frontier = new int[16];
+    private int[] nextFrontier = new int[16];
+    private int[] visitStamp = new int[0];
+    private int stamp = 0;
+    private int[] searchQueue = new int[0];
 
     public FogOfWar(Galaxy galaxy) {
         this.galaxy = galaxy;
+
+        views.add(new OwnerView(null));
+        for (Enemy enemy : galaxy.getEnemies()) {
+            views.add(new OwnerView(enemy));
+        }
+
+        galaxy.addListener(this);
     }
 
     public void updateVisibility() {
-        visibleSystems.clear();
+        if (laneOffsets != galaxy.getLaneOffsets() || visitStamp.length != galaxy.getSystems().size()) {
+            rebuild();
+            return;
+        }
+
+        BitSet changed;
+        synchronized (dirty) {
+            if (dirty.isEmpty()) return;
+            changed = (BitSet) dirty.clone();
+            dirty.clear();
+        }
+
+        for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+            updateSource(id);
+        }
+    }
+
+    private void rebuild() {
+        int size = galaxy.getSystems().size();
 
-        for (StarSystem system : galaxy.getSystems()) {
-            if (hasPlayerColony(system)) {
-                visibleSystems.add(system);
-                addNeighbors(system, 1);
+        laneOffsets = galaxy.getLaneOffsets();
+        visitStamp = new int[size];
+
+        for (OwnerView view : views) {
+            view.viewers = new int[size];
+            view.radius = new int[size];
+            Arrays.fill(view.radius, NO_SOURCE);
+            view.visible.clear();
+        }
+
+        synchronized (dirty) {
+            dirty.clear();
+        }
+
+        for (int id = 0; id < size; id++) {
+            updateSource(id);
+        }
+    }
+
+    private void updateSource(int id) {
+        StarSystem system = galaxy.getSystem(id);
+
+        for (OwnerView view : views) {
+            int newRadius = sourceRadius(system, view.owner);
+            if (newRadius == view.radius[id]) continue;
+
+            if (view.radius[id] != NO_SOURCE) {
+                applyArea(view, id, view.radius[id], -1);
             }
+            if (newRadius != NO_SOURCE) {
+                applyArea(view, id, newRadius, 1);
+            }
+            view.radius[id] = newRadius;
+        }
+    }
+
+//    Promień widoczności systemu jako źródła albo NO_SOURCE, jeśli właściciel nic w nim nie ma
+    private int sourceRadius(StarSystem system, Enemy owner) {
+        int result = NO_SOURCE;
+
+        if (hasColony(system, owner)) {
+            result = 1;
+        }
+
+        for (Fleet fleet : system.getFleets()) {
+            if (fleet.getOwner() == owner) {
+                result = Math.max(result, fleet.countShipType(ShipType.SCOUT) > 0 ? 2 : 1);
+            }
+        }
 
-            if (hasPlayerFleet(system)) {
-                visibleSystems.add(system);
+        return result;
+    }
+
+//    Dodaje (delta = 1) albo odejmuje (delta = -1) system i jego sąsiadów do odległości depth
+    private void applyArea(OwnerView view, int center, int depth, int delta) {
+        int[] offsets = galaxy.getLaneOffsets();
+        int[] targets = galaxy.getLaneTargets();
+
+        stamp++;
+        visitStamp[center] = stamp;
+        addViewers(view, center, delta);
+
+        frontier[0] = center;
+        int size = 1;
+
+        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+            int nextSize = 0;
+
+            for (int i = 0; i < size; i++) {
+                int current = frontier[i];
+                for (int lane = offsets[current]; lane < offsets[current + 1]; lane++) {
+                    int neighbor = targets[lane];
+                    if (visitStamp[neighbor] == stamp) continue;
+
+                    visitStamp[neighbor] = stamp;
+                    addViewers(view, neighbor, delta);
 
-                Fleet fleet = system.getPlayerFleet();
-                if (hasScout(fleet)) {
-                    addNeighbors(system, 2);
-                } else {
-                    addNeighbors(system, 1);
+                    if (nextSize == nextFrontier.length) {
+                        nextFrontier = Arrays.copyOf(nextFrontier, nextSize * 2);
+                    }
+                    nextFrontier[nextSize++] = neighbor;
                 }
             }
+
+            int[] swap = frontier;
+            frontier = nextFrontier;
+            nextFrontier = swap;
+            size = nextSize;
+        }
+    }
+
+    private void addViewers(OwnerView view, int id, int delta) {
+        view.viewers[id] += delta;
+        if (view.viewers[id] > 0) {
+            view.visible.set(id);
+            view.explored.set(id);
+        } else {
+            view.visible.clear(id);
         }
     }
 
-    private boolean hasPlayerColony(StarSystem system) {
+    private boolean hasColony(StarSystem system, Enemy owner) {
         for (OrbitSlot orbit : system.getOrbits()) {
             if (orbit.getObject() instanceof Planet planet) {
-                if (planet.isColonized() && planet.getOwner() == null) {
+                if (planet.isColonized() && planet.getOwner() == owner) {
                     return true;
                 }
             }
@@ -51,42 +195,111 @@ public class FogOfWar {
         return false;
     }
 
-    private boolean hasPlayerFleet(StarSystem system) {
-        return system.getFleets().stream()
-                .anyMatch(f -> f.getOwner() == null);
+    private void markDirty(StarSystem system) {
+        if (system == null || system.getGalaxy() != galaxy) return;
+        synchronized (dirty) {
+            dirty.set(system.getId());
+        }
+    }
+
+    @Override
+    public void fleetAdded(StarSystem system, Fleet fleet) {
+        markDirty(system);
     }
 
-    private boolean hasScout(Fleet fleet) {
-        if (fleet == null) return false;
-        if (fleet.getOwner() != null) return false;
-        return fleet.countShipType(ShipType.SCOUT) > 0;
+    @Override
+    public void fleetRemoved(StarSystem system, Fleet fleet) {
+        markDirty(system);
     }
 
-    private void addNeighbors(StarSystem center, int depth) {
-        if (depth <= 0) return;
+    @Override
+    public void fleetChanged(Fleet fleet) {
+        markDirty(fleet.getLocation());
+    }
 
-        Set<StarSystem> toVisit = new HashSet<>();
-        toVisit.add(center);
+    @Override
+    public void colonyChanged(StarSystem system, Planet planet) {
+        markDirty(system);
+    }
 
-        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
-            Set<StarSystem> nextLevel = new HashSet<>();
+    public boolean isSystemVisible(StarSystem system) {
+        return views.get(0).visible.get(system.getId());
+    }
 
-            for (StarSystem current : toVisit) {
-                for (StarSystem neighbor : current.getNeighbors()) {
-                    visibleSystems.add(neighbor);
-                    nextLevel.add(neighbor);
+    public boolean isSystemVisible(Enemy owner, StarSystem system) {
+        OwnerView view = viewOf(owner);
+        return view != null && view.visible.get(system.getId());
+    }
+
+//    Czy system był kiedykolwiek widoczny dla właściciela
+    public boolean isSystemExplored(Enemy owner, StarSystem system) {
+        OwnerView view = viewOf(owner);
+        return view != null && view.explored.get(system.getId());
+    }
+
+//    Najbliższy (w skokach) system, którego właściciel jeszcze nie widział, albo null
+    public StarSystem findNearestUnexplored(Enemy owner, StarSystem from) {
+        OwnerView view = viewOf(owner);
+        if (view == null || from.getGalaxy() != galaxy) return null;
+
+        updateVisibility();
+
+        int[] offsets = galaxy.getLaneOffsets();
+        int[] targets = galaxy.getLaneTargets();
+        if (searchQueue.length != visitStamp.length) {
+            searchQueue = new int[visitStamp.length];
+        }
+
+        stamp++;
+        int head = 0;
+        int tail = 0;
+        searchQueue[tail++] = from.getId();
+        visitStamp[from.getId()] = stamp;
+
+        while (head < tail) {
+            int current = searchQueue[head++];
+            if (!view.explored.get(current)) {
+                return galaxy.getSystem(current);
+            }
+
+            for (int lane = offsets[current]; lane < offsets[current + 1]; lane++) {
+                int neighbor = targets[lane];
+                if (visitStamp[neighbor] != stamp) {
+                    visitStamp[neighbor] = stamp;
+                    searchQueue[tail++] = neighbor;
                 }
             }
+        }
 
-            toVisit = nextLevel;
+        return null;
+    }
+
+//    Odkryte systemy (bity o indeksie id) - do zapisu gry
+    BitSet getExplored(Enemy owner) {
+        OwnerView view = viewOf(owner);
+        return view != null ? (BitSet) view.explored.clone() : new BitSet();
+    }
+
+    void restoreExplored(Enemy owner, BitSet explored) {
+        OwnerView view = viewOf(owner);
+        if (view != null) {
+            view.explored.or(explored);
         }
     }
 
-    public boolean isSystemVisible(StarSystem system) {
-        return visibleSystems.contains(system);
+    private OwnerView viewOf(Enemy owner) {
+        for (OwnerView view : views) {
+            if (view.owner == owner) return view;
+        }
+        return null;
     }
 
     public Set<StarSystem> getVisibleSystems() {
-        return new HashSet<>(visibleSystems);
+        BitSet visible = views.get(0).visible;
+        Set<StarSystem> result = new HashSet<>();
+        for (int id = visible.nextSetBit(0); id >= 0; id = visible.nextSetBit(id + 1)) {
+            result.add(galaxy.getSystem(id));
+        }
+        return result;
     }
-}
\ No newline at end of file
+}
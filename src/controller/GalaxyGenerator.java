@@ -1,7 +1,6 @@
 package controller;
 
 import model.*;
-import model.buildings.Building;
 import model.buildings.BuildingType;
 import model.galaxy.*;
 import model.orbits.AsteroidField;
@@ -19,9 +18,19 @@ import java.util.*;
 public class GalaxyGenerator {
     private static int galaxyWidth;
     private static int galaxyHeight;
+    private static double starSpacing;
 
     private static final GalaxyMask MASK = new GalaxyMask("/galaxy_mask.png");
 
+    // Kolejni przeciwnicy - liczba nazw ogranicza liczbę imperiów AI na mapie
+    private static final String[] EMPIRE_NAMES = {
+            "Imperium Galaktyczne", "Konfederacja Orionu", "Hegemonia Vegi", "Unia Andromedy", "Dominium Deneb"
+    };
+    private static final java.awt.Color[] EMPIRE_COLORS = {
+            java.awt.Color.RED, java.awt.Color.ORANGE, java.awt.Color.MAGENTA, java.awt.Color.CYAN, java.awt.Color.PINK
+    };
+    public static final int MAX_ENEMIES = EMPIRE_NAMES.length;
+
     public static int getGalaxyWidth() {
         return galaxyWidth;
     }
@@ -32,26 +41,45 @@ public class GalaxyGenerator {
 
     private static int minStarDistance() {
         int base = Math.min(galaxyWidth, galaxyHeight) / 18;
-        return Math.max(80, Math.min(base, 180));
+        // Na dużych mapach odstęp nie może przekroczyć średniej odległości między gwiazdami, bo się nie zmieszczą
+        int spacingLimit = (int) (starSpacing * 0.45);
+        return Math.max(80, Math.min(Math.min(base, 180), spacingLimit));
     }
 
     public static Galaxy generate(MapSize size) {
+        return generate(size, new SplittableRandom().nextLong());
+    }
+
+//    Ten sam seed zawsze daje tę samą mapę - cała generacja korzysta z jednego strumienia losowości
+    public static Galaxy generate(MapSize size, long seed) {
+        return generate(size, size.getStarCount(), seed);
+    }
+
+//    Mapa o parametrach danego rozmiaru, ale z dowolną liczbą gwiazd (np. testy wydajności)
+    public static Galaxy generate(MapSize size, int targetStars, long seed) {
+        return generate(size, targetStars, seed, 1);
+    }
+
+//    Z podaną liczbą imperiów AI - każde kolejne startuje możliwie daleko od wszystkich wcześniejszych
+    public static Galaxy generate(MapSize size, int targetStars, long seed, int enemies) {
+        if (enemies < 0 || enemies > MAX_ENEMIES) {
+            throw new IllegalArgumentException("Liczba przeciwników poza zakresem 0-" + MAX_ENEMIES + ": " + enemies);
+        }
+
         Galaxy galaxy = new Galaxy();
-        Random random = new Random();
+        galaxy.setSeed(seed);
+        SplittableRandom random = new SplittableRandom(seed);
 
-        int targetStars = size.getStarCount();
+        double densityMultiplier = size.getDensityMultiplier();
 
-        double densityMultiplier = switch (size) {
-            case SMALL -> 0.9;
-            case MEDIUM -> 1.2;
-            case LARGE -> 1.6;
-        };
+        calculateGalaxySize(size, targetStars);
 
-        calculateGalaxySize(size);
+        // Pusta siatka o komórce równej minimalnej odległości - sprawdzenie odstępu to kilka komórek
+        galaxy.rebuildSpatialIndex(minStarDistance());
 
         StarSystem sol = generateMaskedStar("Sol", galaxy, random);
 
-        galaxy.getSystems().add(sol);
+        galaxy.addSystem(sol);
         galaxy.setHomeSystem(sol);
 
         generateNearbyStar("Alpha Centauri", sol, galaxy, random);
@@ -64,11 +92,12 @@ public class GalaxyGenerator {
         names.remove("Sirius");
 
         int attempts = 0;
+        int maxAttempts = Math.max(10_000, targetStars * 100);
+        int catalogNumber = 0;
 
         // Główna pętla umieszczania gwiazd
-        while (galaxy.getSystems().size() < targetStars && attempts < 10_000) {
+        while (galaxy.getSystems().size() < targetStars && attempts < maxAttempts) {
             attempts++;
-            if (names.isEmpty()) break;
 
             // kąt i promień, żeby chociaż trochę przypominało spiralę
             double angle = random.nextDouble() * 2 * Math.PI;
@@ -83,69 +112,65 @@ public class GalaxyGenerator {
             int x = (int) (centerX + Math.cos(angle) * radius * maxRadiusX);
             int y = (int) (centerY + Math.sin(angle) * radius * maxRadiusY);
 
-            if (!MASK.isAllowed(x, y, galaxyWidth, galaxyHeight, densityMultiplier)) {
+            if (!MASK.isAllowed(x, y, galaxyWidth, galaxyHeight, densityMultiplier, random)) {
                 continue;
             }
 
             if (!isFarEnough(x, y, galaxy)) continue;
 
-            String name = names.remove(random.nextInt(names.size()));
-            galaxy.getSystems().add(new StarSystem(name, x, y));
+            String name = names.isEmpty()
+                    ? StarNames.catalogName(++catalogNumber)
+                    : names.remove(random.nextInt(names.size()));
+            galaxy.addSystem(new StarSystem(name, x, y));
         }
 
-        // łączenie systemów
-        generateConnections(galaxy);
+        // łączenie systemów - siatka przebudowana z komórką dopasowaną do gęstości gwiazd
+        galaxy.rebuildSpatialIndex();
+        generateConnections(galaxy, random);
         forceSolConnections(galaxy);
         ensureMinConnections(galaxy, 4);
         ensureConnectivity(galaxy);
         centerGalaxy(galaxy);
+        galaxy.rebuildSpatialIndex();
+        galaxy.freezeLanes();
 
-        // Generowanie planet, asteroid i gazowych gigantów
+        // Generowanie planet, asteroid i gazowych gigantów - każdy system ma własny, wydzielony strumień
         for (StarSystem s : galaxy.getSystems()) {
-            generateOrbits(s, random);
+            generateOrbits(s, random.split());
         }
-        setupHomeSystem(galaxy);
+        setupHomeSystem(galaxy, random, enemies);
         return galaxy;
     }
 
 
     private static void ensureMinConnections(Galaxy galaxy, int min) {
         List<StarSystem> systems = galaxy.getSystems();
+        SpatialGrid index = galaxy.getSpatialIndex();
 
         for (StarSystem system : systems) {
             if (system.getNeighbors().size() >= min) continue;
 
-            List<StarSystem> sorted =
-                    systems.stream().filter(s -> s != system)
-                            .filter(s -> !system.getNeighbors().contains(s))
-                            .sorted(Comparator.comparingDouble(system::distanceTo))
-                            .toList();
-
-            for (StarSystem other : sorted) {
-                if (system.getNeighbors().size() >= min) break;
+            List<StarSystem> initialNeighbors = new ArrayList<>(system.getNeighbors());
 
-                if (system == other) continue;
+            index.visitByDistance(system.getX(), system.getY(), Double.MAX_VALUE, other -> {
+                if (system.getNeighbors().size() >= min) return false;
 
-                if (!canConnect(system, other, min + 1)) continue;
+                if (other == system || initialNeighbors.contains(other)) return true;
 
-                system.addNeighbor(other);
-                other.addNeighbor(system);
-            }
+                if (canConnect(system, other, min + 1)) {
+                    system.addNeighbor(other);
+                    other.addNeighbor(system);
+                }
+                return true;
+            });
         }
     }
 
     private static boolean isFarEnough(int x, int y, Galaxy galaxy) {
-        for (StarSystem s : galaxy.getSystems()) {
-            double dist = distance(x, y, s.getX(), s.getY());
-
-            if (dist < minStarDistance())
-                return false;
-        }
-
-        return true;
+        return !galaxy.getSpatialIndex().anyWithin(x, y, minStarDistance());
     }
 
-    private static void generateConnections(Galaxy galaxy) {
+    private static void generateConnections(Galaxy galaxy, SplittableRandom random) {
 
         final int MIN_CONNECTIONS = 3;
         final int MAX_CONNECTIONS = 4;
@@ -153,28 +178,41 @@ public class GalaxyGenerator {
 
         List<StarSystem> systems = galaxy.getSystems();
 
+        // Osobna siatka tylko z systemami, które mogą jeszcze dostać połączenie -
+        // pełne (MAX_CONNECTIONS) są z niej usuwane, więc nie trzeba ich przeglądać przy każdym szukaniu
+        SpatialGrid open = new SpatialGrid(galaxy.getSpatialIndex().getCellSize());
         for (StarSystem system : systems) {
-            List<StarSystem> sorted = systems.stream()
-                    .filter(s -> s != system)
-                    .sorted(Comparator.comparingDouble(system::distanceTo))
-                    .toList();
+            open.add(system);
+        }
 
-            int target = MIN_CONNECTIONS + (Math.random() < 0.35 ? 1 : 0) + (Math.random() < 0.15 ? 1 : 0);
-            target = Math.min(target, MAX_CONNECTIONS);
+        for (StarSystem system : systems) {
+            int target = MIN_CONNECTIONS + (random.nextDouble() < 0.35 ? 1 : 0) + (random.nextDouble() < 0.15 ? 1 : 0);
+            int limit = Math.min(target, MAX_CONNECTIONS);
 
-            int added = 0;
+            if (system.getNeighbors().size() >= MAX_CONNECTIONS) continue;
 
-            for (StarSystem other : sorted) {
-                if (added >= target) break;
+            int[] added = {0};
 
-                if (system.distanceTo(other) > MAX_DISTANCE) continue;
+            // Systemy dalsze niż MAX_DISTANCE nie są w ogóle brane pod uwagę
+            open.visitByDistance(system.getX(), system.getY(), MAX_DISTANCE, other -> {
+                if (added[0] >= limit) return false;
+                if (other == system) return true;
 
                 if (!system.getNeighbors().contains(other) &&
                         canConnect(system, other, MAX_CONNECTIONS)) {
                     system.addNeighbor(other);
                     other.addNeighbor(system);
-                    added++;
+                    added[0]++;
+
+                    if (other.getNeighbors().size() >= MAX_CONNECTIONS) {
+                        open.remove(other);
+                    }
                 }
+                return system.getNeighbors().size() < MAX_CONNECTIONS;
+            });
+
+            if (system.getNeighbors().size() >= MAX_CONNECTIONS) {
+                open.remove(system);
             }
         }
     }
@@ -194,40 +232,39 @@ public class GalaxyGenerator {
         }
     }
 
-    private static double distance(int x1, int y1, int x2, int y2) {
-        return Math.hypot(x1 - x2, y1 - y2);
-    }
-
 //    Zapewnia że cała mapa jest połączona i nie ma odizolowanych fragmentów
     private static void ensureConnectivity(Galaxy galaxy) {
         List<StarSystem> systems = galaxy.getSystems();
-        Set<StarSystem> visited = new HashSet<>();
+        SpatialGrid index = galaxy.getSpatialIndex();
+        BitSet visited = new BitSet(systems.size());
 
         // DFS od pierwszego systemu
-        dfs(systems.get(0), visited);
+        int visitedCount = dfs(systems.get(0), visited);
 
         // Dopóki są nieodwiedzone systemy (odizolowane komponenty)
-        while (visited.size() < systems.size()) {
+        while (visitedCount < systems.size()) {
 
             StarSystem a = null;
             StarSystem b = null;
 
             double best = Double.MAX_VALUE;
 
-            // Znajdź najkrótszy most między odwiedzonymi a nieodwiedzonymi
-            for (StarSystem s1 : visited) {
+            // Znajdź najkrótszy most między odwiedzonymi a nieodwiedzonymi -
+            // dla każdego nieodwiedzonego najbliższy odwiedzony, szukany tylko bliżej niż dotychczasowy najlepszy
+            for (StarSystem s2 : systems) {
 
-                for (StarSystem s2 : systems) {
+                if (visited.get(s2.getId())) continue;
 
-                    if (visited.contains(s2)) continue;
+                List<StarSystem> nearest = index.nearest(s2.getX(), s2.getY(), 1, best, s -> visited.get(s.getId()));
+                if (nearest.isEmpty()) continue;
 
-                    double d = s1.distanceTo(s2);
+                StarSystem s1 = nearest.get(0);
+                double d = s1.distanceTo(s2);
 
-                    if (d < best) {
-                        best = d;
-                        a = s1;
-                        b = s2;
-                    }
+                if (d < best) {
+                    best = d;
+                    a = s1;
+                    b = s2;
                 }
             }
 
@@ -235,27 +272,47 @@ public class GalaxyGenerator {
             if (a != null && b != null) {
                 a.addNeighbor(b);
                 b.addNeighbor(a);
-                dfs(b, visited);
+                visitedCount += dfs(b, visited);
             }
         }
     }
 
-//     Depth-First Search - oznacza wszystkie osiągalne systemy jako odwiedzone
-    private static void dfs(StarSystem system, Set<StarSystem> visited) {
-        if (!visited.add(system)) return;
+//     Depth-First Search - oznacza wszystkie osiągalne systemy jako odwiedzone, zwraca liczbę nowo oznaczonych
+    private static int dfs(StarSystem start, BitSet visited) {
+        if (visited.get(start.getId())) return 0;
+
+        // Jawny stos zamiast rekurencji - przy dużych mapach głębokość rekurencji mogłaby przepełnić stos wątku
+        int[] stack = new int[16];
+        int top = 0;
+        int count = 0;
+
+        visited.set(start.getId());
+        stack[top++] = start.getId();
+
+        while (top > 0) {
+            StarSystem system = start.getGalaxy().getSystem(stack[--top]);
+            count++;
 
-        for (StarSystem n : system.getNeighbors()) {
-            dfs(n, visited);
+            for (StarSystem n : system.getNeighbors()) {
+                if (visited.get(n.getId())) continue;
+
+                visited.set(n.getId());
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = n.getId();
+            }
         }
+        return count;
     }
 
-    private static StarSystem generateMaskedStar(String name, Galaxy galaxy, Random random) {
+    private static StarSystem generateMaskedStar(String name, Galaxy galaxy, SplittableRandom random) {
         for (int i = 0; i < 5000; i++) {
 
             int x = random.nextInt(galaxyWidth);
             int y = random.nextInt(galaxyHeight);
 
-            if (!MASK.isAllowed(x, y, galaxyWidth, galaxyHeight, 1.2)) continue;
+            if (!MASK.isAllowed(x, y, galaxyWidth, galaxyHeight, 1.2, random)) continue;
 
             if (!isFarEnough(x, y, galaxy)) continue;
 
@@ -265,7 +322,7 @@ public class GalaxyGenerator {
         throw new RuntimeException("Nie udało się umieścić gwiazdy: " + name);
     }
 
-    private static void generateNearbyStar(String name, StarSystem center, Galaxy galaxy, Random random) {
+    private static void generateNearbyStar(String name, StarSystem center, Galaxy galaxy, SplittableRandom random) {
         for (int i = 0; i < 2000; i++) {
 
             double angle = random.nextDouble() * Math.PI * 2;
@@ -276,27 +333,22 @@ public class GalaxyGenerator {
 
             if (x < 0 || y < 0 || x >= galaxyWidth || y >= galaxyHeight) continue;
 
-            if (!MASK.isAllowed(x, y, galaxyWidth, galaxyHeight, 1.0)) continue;
+            if (!MASK.isAllowed(x, y, galaxyWidth, galaxyHeight, 1.0, random)) continue;
 
             if (!isFarEnough(x, y, galaxy)) continue;
 
-            galaxy.getSystems().add(new StarSystem(name, x, y));
+            galaxy.addSystem(new StarSystem(name, x, y));
             return;
         }
 
         System.err.println("Nie udało się umieścić: " + name);
     }
 
-    private static void calculateGalaxySize(MapSize size) {
-        int stars = size.getStarCount();
-
-        double areaPerStar = switch (size) {
-            case SMALL -> 45_000;
-            case MEDIUM -> 38_000;
-            case LARGE -> 30_000;
-        };
+    private static void calculateGalaxySize(MapSize size, int stars) {
+        double areaPerStar = size.getAreaPerStar();
 
         int side = (int) Math.sqrt(stars * areaPerStar);
+        starSpacing = Math.sqrt(areaPerStar);
 
         galaxyWidth = side;
         galaxyHeight = side;
@@ -340,7 +392,7 @@ public class GalaxyGenerator {
         }
     }
 
-    private static void generateOrbits(StarSystem system, Random random) {
+    private static void generateOrbits(StarSystem system, SplittableRandom random) {
 
         int orbitCount;
 
@@ -358,18 +410,18 @@ public class GalaxyGenerator {
             OrbitObject object;
 
             if (r < 0.60) {
-                object = new Planet(randomPlanetType(random));
+                object = new Planet(randomPlanetType(random), random);
             } else if (r < 0.80) {
                 object = new AsteroidField();
             } else {
                 object = new GasGiant();
             }
 
-            system.getOrbits().add(new OrbitSlot(i, object));
+            system.addOrbit(new OrbitSlot(i, object));
         }
     }
 
-    private static PlanetType randomPlanetType(Random random) {
+    private static PlanetType randomPlanetType(SplittableRandom random) {
 
 //        PlanetType[] values = PlanetType.values();
 
@@ -393,23 +445,23 @@ public class GalaxyGenerator {
         }
     }
 
-    private static void setupHomeSystem(Galaxy galaxy) {
+    private static void setupHomeSystem(Galaxy galaxy, SplittableRandom random, int enemies) {
         StarSystem home = galaxy.getHomeSystem();
         if (home == null) return;
 
-        Planet startPlanet = new Planet(PlanetType.TERRAN);
+        Planet startPlanet = new Planet(PlanetType.TERRAN, random);
         startPlanet.colonizeHomePlanet();
         startPlanet.setMoon(startPlanet);
 
-        startPlanet.getBuildings().add(new Building(BuildingType.OSADA_GORNICZA));
-        startPlanet.getBuildings().add(new Building(BuildingType.CENTRUM_ADMINISTRACYJNE));
-        startPlanet.getBuildings().add(new Building(BuildingType.WIEZA_KOMUNIKACYJNA));
-        startPlanet.getBuildings().add(new Building(BuildingType.TARG_KOLONIALNY));
+        startPlanet.addBuilding(BuildingType.OSADA_GORNICZA);
+        startPlanet.addBuilding(BuildingType.CENTRUM_ADMINISTRACYJNE);
+        startPlanet.addBuilding(BuildingType.WIEZA_KOMUNIKACYJNA);
+        startPlanet.addBuilding(BuildingType.TARG_KOLONIALNY);
 
         if (home.getOrbits().isEmpty()) {
             home.addOrbit(new OrbitSlot(1, startPlanet));
         } else {
-            home.getOrbits().set(0, new OrbitSlot(1, startPlanet));
+            home.setOrbit(0, new OrbitSlot(1, startPlanet));
         }
 
         Fleet startingFleet = new Fleet(home);
@@ -417,34 +469,42 @@ public class GalaxyGenerator {
         startingFleet.addShip(new Ship(ShipType.SCOUT));
         home.addFleet(startingFleet);
 
-        Enemy enemy = setupAIPlayer(galaxy, home);
-        galaxy.setEnemy(enemy);
+        List<StarSystem> homes = new ArrayList<>(List.of(home));
+        for (int i = 0; i < enemies; i++) {
+            Enemy enemy = setupAIPlayer(galaxy, i, homes, random);
+            galaxy.addEnemy(enemy);
+            if (enemy.getHomeSystem() != null) {
+                homes.add(enemy.getHomeSystem());
+            }
+        }
     }
 
 //    Ustawia system i inne elementy przeciwnika
-    private static Enemy setupAIPlayer(Galaxy galaxy, StarSystem playerHome) {
-        Enemy ai = new Enemy("Imperium Galaktyczne", java.awt.Color.RED);
+    private static Enemy setupAIPlayer(Galaxy galaxy, int index, List<StarSystem> homes, SplittableRandom random) {
+        Enemy ai = new Enemy(EMPIRE_NAMES[index], EMPIRE_COLORS[index]);
 
-        List<StarSystem> candidateSystems = findDistantSystems(galaxy, playerHome);
+        // Kolejne imperia mieszczą się już bliżej - na mniejszej mapie nie ma tylu odległych systemów
+        int minimumHops = homes.size() == 1 ? 4 : 2;
+        List<StarSystem> candidateSystems = findDistantSystems(galaxy, homes, minimumHops);
 
         if (candidateSystems.isEmpty()) return ai;
 
-        StarSystem aiHome = candidateSystems.get(new java.util.Random().nextInt(candidateSystems.size()));
+        StarSystem aiHome = candidateSystems.get(random.nextInt(candidateSystems.size()));
         ai.setHomeSystem(aiHome);
 
-        Planet aiStartPlanet = new Planet(PlanetType.TERRAN);
+        Planet aiStartPlanet = new Planet(PlanetType.TERRAN, random);
         aiStartPlanet.colonizeHomePlanetForAI(ai);
         aiStartPlanet.setMoon(aiStartPlanet);
 
-        aiStartPlanet.getBuildings().add(new Building(BuildingType.OSADA_GORNICZA));
-        aiStartPlanet.getBuildings().add(new Building(BuildingType.CENTRUM_ADMINISTRACYJNE));
-        aiStartPlanet.getBuildings().add(new Building(BuildingType.WIEZA_KOMUNIKACYJNA));
-        aiStartPlanet.getBuildings().add(new Building(BuildingType.TARG_KOLONIALNY));
+        aiStartPlanet.addBuilding(BuildingType.OSADA_GORNICZA);
+        aiStartPlanet.addBuilding(BuildingType.CENTRUM_ADMINISTRACYJNE);
+        aiStartPlanet.addBuilding(BuildingType.WIEZA_KOMUNIKACYJNA);
+        aiStartPlanet.addBuilding(BuildingType.TARG_KOLONIALNY);
 
         if (aiHome.getOrbits().isEmpty()) {
             aiHome.addOrbit(new OrbitSlot(1, aiStartPlanet));
         } else {
-            aiHome.getOrbits().set(0, new OrbitSlot(1, aiStartPlanet));
+            aiHome.setOrbit(0, new OrbitSlot(1, aiStartPlanet));
         }
 
         Fleet aiFleet = new Fleet(aiHome, ai);
@@ -455,17 +515,28 @@ public class GalaxyGenerator {
         return ai;
     }
 
-    private static List<StarSystem> findDistantSystems(Galaxy galaxy, StarSystem playerHome) {
+//    Odległością jest liczba skoków do najbliższego z już zajętych systemów macierzystych
+    private static List<StarSystem> findDistantSystems(Galaxy galaxy, List<StarSystem> homes, int minimumHops) {
         List<StarSystem> allSystems = new ArrayList<>(galaxy.getSystems());
 
-        Map<StarSystem, Integer> distances = new HashMap<>();
+        // LinkedHashMap - kolejność kandydatów nie może zależeć od hashy obiektów
+        Map<StarSystem, Integer> distances = new LinkedHashMap<>();
+
+        // Jeden przebieg po tablicy tras na każdy system macierzysty zamiast osobnego szukania ścieżek
+        List<int[]> hopsFromHomes = new ArrayList<>();
+        for (StarSystem home : homes) {
+            hopsFromHomes.add(galaxy.getRoutingTable().hopDistancesFrom(home));
+        }
 
         for (StarSystem system : allSystems) {
-            if (system == playerHome) continue;
+            if (homes.contains(system)) continue;
 
-            List<StarSystem> path = Pathfinder.findPath(playerHome, system);
-            if (path != null) {
-                int distance = path.size() - 1;  // Liczba skoków
+            int distance = Integer.MAX_VALUE;  // Liczba skoków
+            for (int[] hops : hopsFromHomes) {
+                distance = hops[system.getId()] < 0 ? -1 : Math.min(distance, hops[system.getId()]);
+                if (distance < 0) break;
+            }
+            if (distance >= 0) {
                 distances.put(system, distance);
             }
         }
@@ -474,9 +545,9 @@ public class GalaxyGenerator {
 
         int maxDistance = distances.values().stream().max(Integer::compareTo).orElse(0);
 
-        if (maxDistance < 3) return List.of();
+        if (maxDistance < minimumHops - 1) return List.of();
 
-        int minAcceptableDistance = Math.max(maxDistance - 1, 4);
+        int minAcceptableDistance = Math.max(maxDistance - 1, minimumHops);
 
         return distances.entrySet().stream()
                 .filter(e -> e.getValue() >= minAcceptableDistance)
@@ -13,127 +13,152 @@ import model.ships.ShipType;
 import model.tech.ResearchManager;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 public class Game {
 
+    private static class SystemEconomy {
+        final int credits;
+        final int research;
+        final int maintenance;
+
+        SystemEconomy(int credits, int research, int maintenance) {
+            this.credits = credits;
+            this.research = research;
+            this.maintenance = maintenance;
+        }
+    }
+
+    private static final String[] TURN_PHASES = {
+            "Ekonomia i produkcja", "Ruchy przeciwnika", "Walki", "Ruch flot", "Zwiad i autozapis"
+    };
+
     private int turn = 1;
     private final Galaxy galaxy;
 
     private int totalCredits = 500;
 
-    private final ResearchManager researchManager = new ResearchManager();
+    private final ResearchManager researchManager;
     private final FogOfWar fogOfWar;
-    private EnemyController enemyController;
+    private final EconomyLedger ledger;
+    private final ContestedSystems contestedSystems;
+    private final List<EnemyController> enemyControllers = new ArrayList<>();  // w kolejności przeciwników galaktyki
+    private final TurnPipeline pipeline = new TurnPipeline();
+    private AutosaveService autosave;
+    private ReplayJournal journal;
 
-    private final List<String> combatReports = new ArrayList<>();
+    private final CombatHistory combatHistory = new CombatHistory();
 
     private boolean gameOver = false;
     private boolean playerWon = false;
 
+    // Ustawiane na czas rozliczania tury w wątku roboczym - polecenia gracza są wtedy odrzucane
+    private volatile boolean turnInProgress = false;
+
     public Game(Galaxy galaxy) {
+        this(galaxy, new ResearchManager(), List.of());
+    }
+
+//    Także dla gry wczytanej z zapisu - badania wszystkich stron odtworzone wcześniej,
+//    brakujące badania przeciwników zaczynają od zera
+    Game(Galaxy galaxy, ResearchManager researchManager, List<ResearchManager> enemyResearch) {
         this.galaxy = galaxy;
+        this.researchManager = researchManager;
         this.fogOfWar = new FogOfWar(galaxy);
-
-        Enemy enemy = galaxy.getEnemy();
-        if (enemy != null) {
-            this.enemyController = new EnemyController(enemy, galaxy);
+        this.ledger = new EconomyLedger(galaxy);
+        this.contestedSystems = new ContestedSystems(galaxy);
+
+        List<Enemy> enemies = galaxy.getEnemies();
+        for (int i = 0; i < enemies.size(); i++) {
+            ResearchManager research = i < enemyResearch.size() ? enemyResearch.get(i) : new ResearchManager();
+            EnemyController controller = new EnemyController(enemies.get(i), galaxy, research, fogOfWar);
+            controller.setOpponentResearch(this::getResearchManager);
+            enemyControllers.add(controller);
         }
 
         this.fogOfWar.updateVisibility();
     }
 
+    void restoreCounters(int turn, int totalCredits, boolean gameOver, boolean playerWon) {
+        this.turn = turn;
+        this.totalCredits = totalCredits;
+        this.gameOver = gameOver;
+        this.playerWon = playerWon;
+    }
+
     public void nextTurn() {
+        nextTurn(null);
+    }
+
+    public void nextTurn(TurnProgressListener progress) {
         if (gameOver) return;
 
+        turnInProgress = true;
+        try {
+            resolveTurn(progress);
+        } finally {
+            turnInProgress = false;
+        }
+    }
+
+    private void resolveTurn(TurnProgressListener progress) {
+        startPhase(progress, 0);
+
         turn++;
-        combatReports.clear();
+
+        List<StarSystem> systems = galaxy.getSystems();
+
+        // Faza 1: ekonomia, produkcja i utrzymanie - każdy system liczony niezależnie
+        List<SystemEconomy> economy = pipeline.map(systems, this::processSystemEconomy);
 
         int creditsThisTurn = 0;
         int researchThisTurn = 0;
         int maintenanceCosts = 0;
 
-        for (StarSystem system : galaxy.getSystems()) {
-            creditsThisTurn += system.getTotalCreditsBonus();
-            researchThisTurn += system.getTotalResearchBonus();
-
-            for (OrbitSlot orbit : system.getOrbits()) {
-                if (orbit.getObject() instanceof Planet planet) {
-                    if (planet.isColonized()) {
-                        if (planet.getOwner() == null) {
-                            creditsThisTurn += planet.getCredits();
-                            researchThisTurn += planet.getResearch();
-                            maintenanceCosts += planet.getMaintenanceCost();
-                        }
-
-                        Ship newShip = planet.processTurn(system);
-                        if (newShip != null) {
-                            if (planet.getOwner() == null) {
-                                Fleet fleet = system.getOrCreatePlayerFleet();
-                                fleet.addShip(newShip);
-                            } else {
-                                Fleet aiFleet = system.getFleets().stream()
-                                        .filter(f -> f.getOwner() == planet.getOwner())
-                                        .findFirst()
-                                        .orElse(null);
-
-                                if (aiFleet == null) {
-                                    aiFleet = new Fleet(system, planet.getOwner());
-                                    system.addFleet(aiFleet);
-                                }
-                                aiFleet.addShip(newShip);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        for (StarSystem system : galaxy.getSystems()) {
-            for (Fleet fleet : system.getFleets()) {
-                if (fleet.getOwner() == null) {
-                    for (Ship ship : fleet.getShips()) {
-                        maintenanceCosts += ship.getType().getMaintenanceCost();
-                    }
-                }
-            }
+        for (SystemEconomy result : economy) {
+            creditsThisTurn += result.credits;
+            researchThisTurn += result.research;
+            maintenanceCosts += result.maintenance;
         }
 
         totalCredits += creditsThisTurn;
         totalCredits -= maintenanceCosts;
         researchManager.addResearchPoints(researchThisTurn);
 
-        if (enemyController != null) {
-            enemyController.processTurn();
+        startPhase(progress, 1);
 
-            int aiResearch = 0;
-            for (StarSystem system : galaxy.getSystems()) {
-                for (OrbitSlot orbit : system.getOrbits()) {
-                    if (orbit.getObject() instanceof Planet planet) {
-                        if (planet.isColonized() && planet.getOwner() != null) {
-                            aiResearch += planet.getResearch();
-                        }
-                    }
-                }
-            }
-
-            enemyController.getResearchManager().addResearchPoints(aiResearch);
+        // Badania AI z bilansu imperium - bez przeglądania galaktyki, niezależnie od liczby przeciwników
+        for (EnemyController controller : enemyControllers) {
+            controller.processTurn();
+            controller.getResearchManager().addResearchPoints(ledger.getAccount(controller.getEnemy()).getResearch());
         }
 
-        for (StarSystem system : galaxy.getSystems()) {
-            ResearchManager enemyRM = enemyController != null ?
-                    enemyController.getResearchManager() : new ResearchManager();
-
-            CombatResolver.CombatResult result = CombatResolver.resolveBattle(system, researchManager, enemyRM);
-
-            if (result != null) {
-                combatReports.add(result.report);
-            }
+        // Faza 2: walki i kontrola systemów - floty nie opuszczają systemu w trakcie walki
+        startPhase(progress, 2);
 
+        // Tylko systemy zmienione od poprzedniej tury i sporne - w spokojnej turze lista jest pusta
+        List<StarSystem> contested = contestedSystems.beginBatch();
+        List<CombatRecord> battles = pipeline.map(contested, system -> {
+            CombatRecord record = CombatResolver.resolveBattle(galaxy, system, turn,
+                    CombatResolver.battleSeed(galaxy.getSeed(), turn, system), this::getResearchManager);
             CombatResolver.resolveSystemControl(system);
+            return record;
+        });
+        contestedSystems.endBatch(contested);
+
+        List<CombatRecord> records = new ArrayList<>();
+        for (CombatRecord record : battles) {
+            if (record != null) {
+                records.add(record);
+            }
         }
+        combatHistory.record(turn, records);
+
+        // Faza 3: ruch flot przenosi je między systemami, więc wykonuje się sekwencyjnie
+        startPhase(progress, 3);
 
         List<Fleet> allFleets = new ArrayList<>();
-        for (StarSystem system : galaxy.getSystems()) {
+        for (StarSystem system : systems) {
             allFleets.addAll(system.getFleets());
         }
 
@@ -141,113 +166,141 @@ public class Game {
             fleet.processTurn();
 
             if (fleet.getOwner() != null && !fleet.isMoving()) {
-                if (enemyController != null) {
-                    enemyController.colonizePlanet(fleet, fleet.getLocation());
+                EnemyController controller = controllerOf(fleet.getOwner());
+                if (controller != null) {
+                    controller.colonizePlanet(fleet, fleet.getLocation());
                 }
             }
         }
 
+        startPhase(progress, 4);
+
         fogOfWar.updateVisibility();
 
         checkGameOver();
+
+        if (journal != null) {
+            journal.turnFinished(this);
+        }
+        if (autosave != null) {
+            autosave.submit(this);
+        }
     }
 
-    public int getNextTurnCreditsIncome() {
-        int income = 0;
+    private void startPhase(TurnProgressListener progress, int phase) {
+        if (progress == null) return;
+
+        if (progress.isCancelled()) {
+            throw new CancellationException("Przerwano turę " + turn);
+        }
+        progress.phaseStarted(phase, TURN_PHASES.length, TURN_PHASES[phase]);
+    }
 
-        for (StarSystem system : galaxy.getSystems()) {
-            income += system.getTotalCreditsBonus();
+    public boolean isTurnInProgress() {
+        return turnInProgress;
+    }
 
-            for (OrbitSlot orbit : system.getOrbits()) {
-                if (orbit.getObject() instanceof Planet planet) {
-                    if (planet.isColonized() && planet.getOwner() == null) {
-                        income += planet.getCredits();
-                    }
-                }
-            }
+//    Wszystkie decyzje gracza z interfejsu przechodzą tędy, żeby trafiły do dziennika.
+//    W trakcie rozliczania tury model jest zablokowany i polecenie nie jest wykonywane.
+    public boolean execute(GameCommand command) {
+        if (turnInProgress) return false;
+
+        if (journal != null) {
+            journal.record(turn, command);
         }
+        return command.apply(this);
+    }
 
-        return income;
+    public void setJournal(ReplayJournal journal) {
+        this.journal = journal;
     }
 
-    public int getNextTurnMaintenanceCosts() {
-        int costs = 0;
+    public ReplayJournal getJournal() {
+        return journal;
+    }
 
-        for (StarSystem system : galaxy.getSystems()) {
-            for (OrbitSlot orbit : system.getOrbits()) {
-                if (orbit.getObject() instanceof Planet planet) {
-                    if (planet.isColonized() && planet.getOwner() == null) {
-                        costs += planet.getMaintenanceCost();
+    public void setAutosave(AutosaveService autosave) {
+        this.autosave = autosave;
+    }
+
+    public AutosaveService getAutosave() {
+        return autosave;
+    }
+
+    private SystemEconomy processSystemEconomy(StarSystem system) {
+        int credits = system.getTotalCreditsBonus(null);
+        int research = system.getTotalResearchBonus(null);
+        int maintenance = 0;
+
+        for (OrbitSlot orbit : system.getOrbits()) {
+            if (orbit.getObject() instanceof Planet planet) {
+                if (planet.isColonized()) {
+                    if (planet.getOwner() == null) {
+                        credits += planet.getCredits();
+                        research += planet.getResearch();
+                        maintenance += planet.getMaintenanceCost();
                     }
-                }
-            }
 
-            for (Fleet fleet : system.getFleets()) {
-                if (fleet.getOwner() == null) {
-                    for (Ship ship : fleet.getShips()) {
-                        costs += ship.getType().getMaintenanceCost();
+                    Ship newShip = planet.processTurn(system);
+                    if (newShip != null) {
+                        if (planet.getOwner() == null) {
+                            Fleet fleet = system.getOrCreatePlayerFleet();
+                            fleet.addShip(newShip);
+                        } else {
+                            Fleet aiFleet = system.getFleets().stream()
+                                    .filter(f -> f.getOwner() == planet.getOwner())
+                                    .findFirst()
+                                    .orElse(null);
+
+                            if (aiFleet == null) {
+                                aiFleet = new Fleet(system, planet.getOwner());
+                                system.addFleet(aiFleet);
+                            }
+                            aiFleet.addShip(newShip);
+                        }
                     }
                 }
             }
         }
 
-        return costs;
+        // Utrzymanie liczone po produkcji, więc obejmuje statki zbudowane w tej turze
+        for (Fleet fleet : system.getFleets()) {
+            if (fleet.getOwner() == null) {
+                maintenance += fleet.getMaintenanceCost();
+            }
+        }
+
+        return new SystemEconomy(credits, research, maintenance);
     }
 
-    public int getNextTurnNetCredits() {
-        return getNextTurnCreditsIncome() - getNextTurnMaintenanceCosts();
+    private EnemyController controllerOf(Enemy owner) {
+        int code = galaxy.getOwnerCode(owner);
+        return code > 0 && code <= enemyControllers.size() ? enemyControllers.get(code - 1) : null;
     }
 
-    public int getNextTurnResearch() {
-        int research = 0;
+    public int getNextTurnCreditsIncome() {
+        return ledger.getPlayerAccount().getIncome();
+    }
 
-        for (StarSystem system : galaxy.getSystems()) {
-            research += system.getTotalResearchBonus();
+    public int getNextTurnMaintenanceCosts() {
+        return ledger.getPlayerAccount().getMaintenance();
+    }
 
-            for (OrbitSlot orbit : system.getOrbits()) {
-                if (orbit.getObject() instanceof Planet planet) {
-                    if (planet.isColonized() && planet.getOwner() == null) {
-                        research += planet.getResearch();
-                    }
-                }
-            }
-        }
+    public int getNextTurnNetCredits() {
+        return getNextTurnCreditsIncome() - getNextTurnMaintenanceCosts();
+    }
 
-        return research;
+    public int getNextTurnResearch() {
+        return ledger.getPlayerAccount().getResearch();
     }
 
+//    Gracz przegrywa, gdy nic mu nie zostało, a wygrywa po wyeliminowaniu wszystkich przeciwników
     private void checkGameOver() {
-        boolean playerHasAnything = false;
+        boolean playerHasAnything = ledger.getPlayerAccount().hasAssets();
         boolean enemyHasAnything = false;
 
-        for (StarSystem system : galaxy.getSystems()) {
-            for (Fleet fleet : system.getFleets()) {
-                if (fleet.getOwner() == null) {
-                    playerHasAnything = true;
-                } else {
-                    enemyHasAnything = true;
-                }
-            }
-
-            for (OrbitSlot orbit : system.getOrbits()) {
-                if (orbit.getObject() instanceof Planet planet) {
-                    if (planet.isColonized()) {
-                        if (planet.getOwner() == null) {
-                            playerHasAnything = true;
-                        } else {
-                            enemyHasAnything = true;
-                        }
-                    }
-                }
-            }
-
-            if (system.hasBattleStation()) {
-                if (system.getBattleStation().getOwner() == null) {
-                    playerHasAnything = true;
-                } else {
-                    enemyHasAnything = true;
-                }
-            }
+        for (Enemy enemy : galaxy.getEnemies()) {
+            enemyHasAnything |= ledger.getAccount(enemy).hasAssets();
         }
 
         if (!playerHasAnything && !enemyHasAnything) {
@@ -271,8 +324,30 @@ public class Game {
         return playerWon;
     }
 
+//    Raporty z ostatniej tury - tekst powstaje dopiero tutaj
     public List<String> getCombatReports() {
-        return new ArrayList<>(combatReports);
+        List<String> reports = new ArrayList<>();
+        for (CombatRecord record : combatHistory.getTurn(turn)) {
+            if (isKnownToPlayer(record)) {
+                reports.add(record.format(galaxy));
+            }
+        }
+        return reports;
+    }
+
+//    Walki przeciwników między sobą gracz zna tylko z systemów, które odkrył - reszta zostaje pod mgłą wojny
+    public boolean isKnownToPlayer(CombatRecord record) {
+        return record.involves(CombatRecord.PLAYER)
+                || fogOfWar.isSystemExplored(null, galaxy.getSystem(record.getSystemId()));
+    }
+
+    public CombatHistory getCombatHistory() {
+        return combatHistory;
+    }
+
+//    Po cofnięciu tury historia walk przechodzi z poprzedniego obiektu gry (zapis jej nie zawiera)
+    public void restoreCombatHistory(Game previous) {
+        combatHistory.restoreFrom(previous.combatHistory, turn);
     }
 
     public int getTurn() {
@@ -291,17 +366,23 @@ public class Game {
         return researchManager;
     }
 
-    public ResearchManager getEnemyResearchManager() {
-        if (enemyController != null) {
-            return enemyController.getResearchManager();
+//    Badania dowolnego właściciela (null = gracz); przeciwnik spoza galaktyki nie ma żadnych
+    public ResearchManager getResearchManager(Enemy owner) {
+        if (owner == null) {
+            return researchManager;
         }
-        return new ResearchManager();
+        EnemyController controller = controllerOf(owner);
+        return controller != null ? controller.getResearchManager() : new ResearchManager();
     }
 
     public FogOfWar getFogOfWar() {
         return fogOfWar;
     }
 
+    public EconomyLedger getLedger() {
+        return ledger;
+    }
+
     public boolean spendCredits(int amount) {
         if (totalCredits >= amount) {
             totalCredits -= amount;
@@ -339,19 +420,9 @@ public class Game {
     public boolean canEndTurn() {
         if (gameOver) return false;
 
-        for (StarSystem system : galaxy.getSystems()) {
-            for (OrbitSlot orbit : system.getOrbits()) {
-                if (orbit.getObject() instanceof Planet planet) {
-                    if (planet.isColonized() && planet.getOwner() == null) {
-                        if (planet.getBuildQueue().isEmpty()) {
-                            return false;
-                        }
-                        if (!planet.isPopulationFullyAssigned()) {
-                            return false;
-                        }
-                    }
-                }
-            }
+        EconomyLedger.Account player = ledger.getPlayerAccount();
+        if (player.getColoniesWithoutQueue() > 0 || player.getColoniesWithIdlePopulation() > 0) {
+            return false;
         }
 
         if (researchManager.getCurrentResearch() == null) {
@@ -366,7 +437,11 @@ public class Game {
             return playerWon ? "Gra zakończona - WYGRANA!" : "Gra zakończona - PRZEGRANA!";
         }
 
-        for (StarSystem system : galaxy.getSystems()) {
+        // Systemy z koloniami gracza (indeks właścicieli) tylko gdy bilans wskazuje, że któraś kolonia blokuje turę
+        EconomyLedger.Account player = ledger.getPlayerAccount();
+        boolean blockedColony = player.getColoniesWithoutQueue() > 0 || player.getColoniesWithIdlePopulation() > 0;
+
+        for (StarSystem system : blockedColony ? galaxy.getColonySystems(null) : List.<StarSystem>of()) {
             for (OrbitSlot orbit : system.getOrbits()) {
                 if (orbit.getObject() instanceof Planet planet) {
                     if (planet.isColonized() && planet.getOwner() == null) {
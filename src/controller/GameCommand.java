@@ -0,0 +1,234 @@
+package controller;
+
+import model.buildings.BuildingType;
+import model.buildings.SpaceInstallationType;
+import model.galaxy.StarSystem;
+import model.orbits.OrbitObject;
+import model.orbits.OrbitSlot;
+import model.orbits.planets.Planet;
+import model.ships.Fleet;
+import model.ships.ShipType;
+import model.tech.Technology;
+
+import java.util.List;
+
+// Pojedyncza decyzja gracza. Obiekty wskazywane są przez id systemu i pozycję na liście orbit
+// albo flot tego systemu, więc polecenie da się zapisać w dzienniku i odtworzyć na kopii gry.
+// Interfejs wykonuje zmiany tylko przez Game.execute, żeby dziennik zawierał pełną historię.
+public class GameCommand {
+
+    public enum Type {
+        QUEUE_BUILDING,
+        QUEUE_SHIP,
+        QUEUE_REMOVE,
+        QUEUE_UP,
+        QUEUE_DOWN,
+        POPULATION_FOOD,
+        POPULATION_PRODUCTION,
+        POPULATION_RESEARCH,
+        RUSH_BUY,
+        COLONIZE,
+        FLEET_DESTINATION,
+        FLEET_SPLIT,
+        START_PROJECT,
+        CANCEL_PROJECT,
+        SET_RESEARCH
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private final Type type;
+    private final int systemId;
+    private final int target;  // pozycja orbity albo floty w systemie, -1 gdy nie dotyczy
+    private final int[] args;
+
+    private GameCommand(Type type, int systemId, int target, int... args) {
+        this.type = type;
+        this.systemId = systemId;
+        this.target = target;
+        this.args = args;
+    }
+
+    public static GameCommand queueBuilding(Planet planet, BuildingType building) {
+        return planetCommand(Type.QUEUE_BUILDING, planet, building.ordinal());
+    }
+
+    public static GameCommand queueShip(Planet planet, ShipType ship) {
+        return planetCommand(Type.QUEUE_SHIP, planet, ship.ordinal());
+    }
+
+    public static GameCommand removeFromQueue(Planet planet, int index) {
+        return planetCommand(Type.QUEUE_REMOVE, planet, index);
+    }
+
+    public static GameCommand moveQueueUp(Planet planet, int index) {
+        return planetCommand(Type.QUEUE_UP, planet, index);
+    }
+
+    public static GameCommand moveQueueDown(Planet planet, int index) {
+        return planetCommand(Type.QUEUE_DOWN, planet, index);
+    }
+
+    public static GameCommand populationOnFood(Planet planet, int value) {
+        return planetCommand(Type.POPULATION_FOOD, planet, value);
+    }
+
+    public static GameCommand populationOnProduction(Planet planet, int value) {
+        return planetCommand(Type.POPULATION_PRODUCTION, planet, value);
+    }
+
+    public static GameCommand populationOnResearch(Planet planet, int value) {
+        return planetCommand(Type.POPULATION_RESEARCH, planet, value);
+    }
+
+    public static GameCommand rushBuy(Planet planet) {
+        return planetCommand(Type.RUSH_BUY, planet);
+    }
+
+    public static GameCommand colonize(Planet planet, Fleet fleet) {
+        return planetCommand(Type.COLONIZE, planet, fleetIndex(fleet));
+    }
+
+//    destination == null anuluje podróż
+    public static GameCommand setDestination(Fleet fleet, StarSystem destination) {
+        return fleetCommand(Type.FLEET_DESTINATION, fleet, destination != null ? destination.getId() : -1);
+    }
+
+//    Liczba statków każdego typu (indeks = ordinal) przenoszonych do nowej floty
+    public static GameCommand splitFleet(Fleet fleet, int[] shipCounts) {
+        return fleetCommand(Type.FLEET_SPLIT, fleet, shipCounts.clone());
+    }
+
+    public static GameCommand startProject(Fleet fleet, SpaceInstallationType installation, OrbitObject orbitTarget) {
+        return fleetCommand(Type.START_PROJECT, fleet, installation.ordinal(), orbitIndex(fleet.getLocation(), orbitTarget));
+    }
+
+    public static GameCommand cancelProject(Fleet fleet) {
+        return fleetCommand(Type.CANCEL_PROJECT, fleet);
+    }
+
+//    tech == null przerywa bieżące badanie
+    public static GameCommand setResearch(Technology tech) {
+        return new GameCommand(Type.SET_RESEARCH, -1, -1, tech != null ? tech.ordinal() : -1);
+    }
+
+    private static GameCommand planetCommand(Type type, Planet planet, int... args) {
+        StarSystem system = planet.getSystem();
+        return new GameCommand(type, system.getId(), orbitIndex(system, planet), args);
+    }
+
+    private static GameCommand fleetCommand(Type type, Fleet fleet, int... args) {
+        return new GameCommand(type, fleet.getLocation().getId(), fleetIndex(fleet), args);
+    }
+
+    private static int orbitIndex(StarSystem system, OrbitObject object) {
+        List<OrbitSlot> orbits = system.getOrbits();
+        for (int i = 0; i < orbits.size(); i++) {
+            if (orbits.get(i).getObject() == object) return i;
+        }
+        return -1;
+    }
+
+    private static int fleetIndex(Fleet fleet) {
+        return fleet.getLocation().getFleets().indexOf(fleet);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+//    Zwraca false, jeśli polecenie nie mogło zostać wykonane
+    boolean apply(Game game) {
+        if (type == Type.SET_RESEARCH) {
+            game.getResearchManager().setCurrentResearch(args[0] >= 0 ? Technology.values()[args[0]] : null);
+            return true;
+        }
+
+        StarSystem system = game.getGalaxy().getSystem(systemId);
+        return switch (type) {
+            case QUEUE_BUILDING, QUEUE_SHIP, QUEUE_REMOVE, QUEUE_UP, QUEUE_DOWN, POPULATION_FOOD,
+                 POPULATION_PRODUCTION, POPULATION_RESEARCH, RUSH_BUY, COLONIZE -> applyToPlanet(game, system);
+            default -> applyToFleet(game, system);
+        };
+    }
+
+    private boolean applyToPlanet(Game game, StarSystem system) {
+        Planet planet = (Planet) system.getOrbits().get(target).getObject();
+
+        switch (type) {
+            case QUEUE_BUILDING -> planet.addBuildingToQueue(BuildingType.values()[args[0]], game.getResearchManager());
+            case QUEUE_SHIP -> planet.addShipToQueue(ShipType.values()[args[0]], game.getResearchManager());
+            case QUEUE_REMOVE -> planet.removeFromQueue(args[0]);
+            case QUEUE_UP -> planet.moveQueueUp(args[0]);
+            case QUEUE_DOWN -> planet.moveQueueDown(args[0]);
+            case POPULATION_FOOD -> planet.setPopulationOnFood(args[0]);
+            case POPULATION_PRODUCTION -> planet.setPopulationOnProduction(args[0]);
+            case POPULATION_RESEARCH -> planet.setPopulationOnResearch(args[0]);
+            case RUSH_BUY -> {
+                return game.rushBuyOnPlanet(planet, system);
+            }
+            case COLONIZE -> {
+                Fleet fleet = system.getFleets().get(args[0]);
+                if (!planet.canColonize(fleet)) return false;
+                planet.colonize(fleet);
+            }
+            default -> throw new IllegalStateException("Polecenie nie dotyczy planety: " + type);
+        }
+        return true;
+    }
+
+    private boolean applyToFleet(Game game, StarSystem system) {
+        Fleet fleet = system.getFleets().get(target);
+
+        switch (type) {
+            case FLEET_DESTINATION -> {
+                return fleet.setDestination(args[0] >= 0 ? game.getGalaxy().getSystem(args[0]) : null);
+            }
+            case FLEET_SPLIT -> {
+                ShipType[] shipTypes = ShipType.values();
+                int moved = 0;
+                for (int i = 0; i < args.length; i++) {
+                    moved += Math.max(0, Math.min(args[i], fleet.countShipType(shipTypes[i])));
+                }
+                // Żadna z flot nie może zostać pusta - sprawdzane tutaj, bo polecenie może przyjść z dziennika
+                if (moved == 0 || moved >= fleet.getShipCount()) return false;
+
+                Fleet newFleet = new Fleet(system, fleet.getOwner());
+                for (int i = 0; i < args.length; i++) {
+                    newFleet.addShips(shipTypes[i], fleet.removeShips(shipTypes[i], args[i]));
+                }
+                system.addFleet(newFleet);
+            }
+            case START_PROJECT -> {
+                SpaceInstallationType installation = SpaceInstallationType.values()[args[0]];
+                OrbitObject orbitTarget = args[1] >= 0 ? system.getOrbits().get(args[1]).getObject() : null;
+                if (!fleet.canStartProject(installation, orbitTarget)) return false;
+                fleet.startProject(installation, orbitTarget);
+            }
+            case CANCEL_PROJECT -> fleet.cancelProject();
+            default -> throw new IllegalStateException("Polecenie nie dotyczy floty: " + type);
+        }
+        return true;
+    }
+
+    void write(BinaryWriter out) {
+        out.writeVarInt(type.ordinal());
+        out.writeSignedVarInt(systemId);
+        out.writeSignedVarInt(target);
+        out.writeVarInt(args.length);
+        for (int arg : args) {
+            out.writeSignedVarInt(arg);
+        }
+    }
+
+    static GameCommand read(BinaryReader in) {
+        Type type = TYPES[in.readVarInt()];
+        int systemId = in.readSignedVarInt();
+        int target = in.readSignedVarInt();
+        int[] args = new int[in.readVarInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = in.readSignedVarInt();
+        }
+        return new GameCommand(type, systemId, target, args);
+    }
+}
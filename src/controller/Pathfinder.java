@@ -1,10 +1,12 @@
 package controller;
 
+import model.galaxy.Galaxy;
 import model.galaxy.StarSystem;
 import java.util.*;
 
 public class Pathfinder {
 
+//    Trasa z tablicy tras galaktyki; BFS tylko dla systemów spoza galaktyki
     public static List<StarSystem> findPath(StarSystem start, StarSystem destination) {
         if (start == null || destination == null) {
             return null;
@@ -14,6 +16,38 @@ public class Pathfinder {
             return List.of(start);
         }
 
+        Galaxy galaxy = start.getGalaxy();
+        if (galaxy != null && destination.getGalaxy() == galaxy) {
+            return galaxy.getRoutingTable().findPath(start, destination);
+        }
+
+        return findPathBfs(start, destination);
+    }
+
+//    Liczba skoków albo -1, jeśli nie ma trasy
+    public static int hopDistance(StarSystem start, StarSystem destination) {
+        if (start == null || destination == null) return -1;
+        if (start == destination) return 0;
+
+        Galaxy galaxy = start.getGalaxy();
+        if (galaxy != null && destination.getGalaxy() == galaxy) {
+            return galaxy.getRoutingTable().hopDistance(start, destination);
+        }
+
+        List<StarSystem> path = findPathBfs(start, destination);
+        return path != null ? path.size() - 1 : -1;
+    }
+
+//    Zwykły BFS bez tablicy tras - zostawiony dla porównania w benchmarku
+    public static List<StarSystem> findPathBfs(StarSystem start, StarSystem destination) {
+        if (start == null || destination == null) {
+            return null;
+        }
+
+        if (start == destination) {
+            return List.of(start);
+        }
+
         Queue<StarSystem> queue = new LinkedList<>();
         Map<StarSystem, StarSystem> parentMap = new HashMap<>();
         Set<StarSystem> visited = new HashSet<>();
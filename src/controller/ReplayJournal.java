@@ -0,0 +1,308 @@
+package controller;
+
+import model.galaxy.Galaxy;
+import model.galaxy.MapSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Dziennik poleceń gracza: punkt startowy (parametry generatora z seedem albo zapis wczytanej gry)
+// i dopisywane po kolei polecenia z numerem tury. Cała reszta gry jest deterministyczna, więc dowolną
+// turę odtwarza ponowne wykonanie poleceń i Game.nextTurn. Co KEYFRAME_INTERVAL tur zapamiętywana jest
+// migawka stanu, od której zaczyna się kolejne przewijanie.
+//
+// Plik to nagłówek i ciąg wpisów (polecenie albo migawka), więc appendTo dopisuje na dysk tylko wpisy
+// powstałe od poprzedniego wywołania. Migawki są w pliku, dlatego dziennik wczytany z dysku przewija
+// od najbliższej migawki, a nie od pierwszej tury.
+public class ReplayJournal {
+
+    private static final int MAGIC = 0x4753524A;  // "GSRJ"
+    public static final int VERSION = 3;  // 2: liczba przeciwników w nagłówku, 3: migawki w pliku
+
+    private static final int RECORD_COMMAND = 0;
+    private static final int RECORD_KEYFRAME = 1;
+
+    public static final int KEYFRAME_INTERVAL = 25;
+
+    private static class Entry {
+        final int turn;
+        final GameCommand command;
+
+        Entry(int turn, GameCommand command) {
+            this.turn = turn;
+            this.command = command;
+        }
+    }
+
+    // Początek: albo nowa mapa z generatora, albo zapis gry, od której zaczęto nagrywać
+    private final MapSize mapSize;
+    private final int starCount;
+    private final int enemies;
+    private final long seed;
+    private final byte[] baseSave;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final TreeMap<Integer, byte[]> keyframes = new TreeMap<>();
+
+    // Tury migawek w kolejności powstania - wyznacza, które nie trafiły jeszcze do pliku
+    private final List<Integer> keyframeOrder = new ArrayList<>();
+
+    // Plik, do którego dopisujemy, i liczba zapisanych w nim poleceń i migawek (null = zapisać od nowa)
+    private Path appendFile;
+    private int appendedEntries;
+    private int appendedKeyframes;
+
+    private ReplayJournal(MapSize mapSize, int starCount, int enemies, long seed, byte[] baseSave) {
+        this.mapSize = mapSize;
+        this.starCount = starCount;
+        this.enemies = enemies;
+        this.seed = seed;
+        this.baseSave = baseSave;
+    }
+
+//    Parametry muszą być te same, z którymi wygenerowano mapę - inaczej odtworzenie trafi na inną galaktykę
+    public static ReplayJournal forNewGame(MapSize mapSize, int starCount, long seed, int enemies) {
+        return new ReplayJournal(mapSize, starCount, enemies, seed, null);
+    }
+
+//    Nagrywanie od bieżącego stanu gry (np. po wczytaniu zapisu)
+    public static ReplayJournal fromGame(Game game) {
+        return new ReplayJournal(null, 0, 0, game.getGalaxy().getSeed(), SaveGame.encode(game));
+    }
+
+    synchronized void record(int turn, GameCommand command) {
+        entries.add(new Entry(turn, command));
+    }
+
+//    Wywoływane po zakończeniu tury w nagrywanej grze
+    synchronized void turnFinished(Game game) {
+        if (game.getTurn() % KEYFRAME_INTERVAL == 0) {
+            addKeyframe(game.getTurn(), SaveGame.encode(game));
+        }
+    }
+
+    private void addKeyframe(int turn, byte[] save) {
+        if (keyframes.put(turn, save) == null) {
+            keyframeOrder.add(turn);
+        }
+    }
+
+    public synchronized int getCommandCount() {
+        return entries.size();
+    }
+
+//    Tura ostatniego polecenia albo -1, jeśli dziennik jest pusty
+    public synchronized int getLastTurn() {
+        return entries.isEmpty() ? -1 : entries.get(entries.size() - 1).turn;
+    }
+
+//    Stan gry w danej turze po wykonaniu wszystkich poleceń gracza z tej tury
+    public synchronized Game replayTo(int turn) throws IOException {
+        Game game;
+        Map.Entry<Integer, byte[]> keyframe = keyframes.floorEntry(turn);
+        if (keyframe != null) {
+            game = SaveGame.decode(keyframe.getValue());
+        } else {
+            game = startGame();
+        }
+
+        int index = firstEntryOf(game.getTurn());
+        while (true) {
+            while (index < entries.size() && entries.get(index).turn == game.getTurn()) {
+                entries.get(index++).command.apply(game);
+            }
+
+            if (game.getTurn() >= turn || game.isGameOver()) break;
+
+            game.nextTurn();
+            if (game.getTurn() % KEYFRAME_INTERVAL == 0 && !keyframes.containsKey(game.getTurn())) {
+                addKeyframe(game.getTurn(), SaveGame.encode(game));
+            }
+        }
+        return game;
+    }
+
+    private Game startGame() {
+        if (baseSave != null) {
+            try {
+                return SaveGame.decode(baseSave);
+            } catch (IOException e) {
+                throw new IllegalStateException("Uszkodzony zapis początkowy dziennika", e);
+            }
+        }
+        Galaxy galaxy = GalaxyGenerator.generate(mapSize, starCount, seed, enemies);
+        return new Game(galaxy);
+    }
+
+//    Wpisy są posortowane według tury - szukanie binarne pierwszego wpisu danej tury
+    private int firstEntryOf(int turn) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries.get(mid).turn < turn) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public synchronized byte[] encode() {
+        BinaryWriter out = new BinaryWriter();
+        writeHeader(out);
+        writeRecords(out, 0, 0);
+        return out.toByteArray();
+    }
+
+    private void writeHeader(BinaryWriter out) {
+        out.writeInt(MAGIC);
+        out.writeVarInt(VERSION);
+
+        out.writeBoolean(baseSave != null);
+        if (baseSave != null) {
+            out.writeBytes(baseSave);
+        } else {
+            out.writeVarInt(mapSize.ordinal());
+            out.writeVarInt(starCount);
+            out.writeVarInt(enemies);
+            out.writeLong(seed);
+        }
+    }
+
+    private void writeRecords(BinaryWriter out, int fromEntry, int fromKeyframe) {
+        for (int i = fromEntry; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            out.writeByte(RECORD_COMMAND);
+            out.writeVarInt(entry.turn);
+            entry.command.write(out);
+        }
+        for (int i = fromKeyframe; i < keyframeOrder.size(); i++) {
+            int turn = keyframeOrder.get(i);
+            out.writeByte(RECORD_KEYFRAME);
+            out.writeVarInt(turn);
+            out.writeBytes(keyframes.get(turn));
+        }
+    }
+
+    public static ReplayJournal decode(byte[] data) throws IOException {
+        BinaryReader in = new BinaryReader(data);
+        ReplayJournal journal;
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("To nie jest dziennik rozgrywki");
+            }
+            int version = in.readVarInt();
+            if (version != VERSION) {
+                throw new IOException("Nieobsługiwana wersja dziennika: " + version);
+            }
+
+            if (in.readBoolean()) {
+                journal = new ReplayJournal(null, 0, 0, 0, in.readBytes());
+            } else {
+                MapSize mapSize = MapSize.values()[in.readVarInt()];
+                int starCount = in.readVarInt();
+                int enemies = in.readVarInt();
+                journal = new ReplayJournal(mapSize, starCount, enemies, in.readLong(), null);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Uszkodzony dziennik rozgrywki", e);
+        }
+
+        while (in.hasMore()) {
+            // Urwany ostatni wpis (awaria w trakcie dopisywania) jest pomijany - wcześniejsze są kompletne
+            try {
+                int kind = in.readByte();
+                int turn = in.readVarInt();
+                if (kind == RECORD_COMMAND) {
+                    GameCommand command = GameCommand.read(in);
+                    journal.entries.add(new Entry(turn, command));
+                } else if (kind == RECORD_KEYFRAME) {
+                    journal.addKeyframe(turn, in.readBytes());
+                } else {
+                    throw new IOException("Nieznany wpis dziennika: " + kind);
+                }
+            } catch (RuntimeException e) {
+                break;
+            }
+        }
+        return journal;
+    }
+
+//    Dopisuje do pliku wpisy powstałe od ostatniego wywołania. Pierwszy zapis (albo zapis do innego
+//    pliku lub po błędzie) tworzy plik od nowa przez plik tymczasowy. Wywoływane z wątku autozapisu.
+    public void appendTo(Path path) throws IOException {
+        byte[] data;
+        boolean rewrite;
+        int entryCount;
+        int keyframeCount;
+
+        synchronized (this) {
+            rewrite = !path.equals(appendFile);
+            entryCount = entries.size();
+            keyframeCount = keyframeOrder.size();
+            if (!rewrite && entryCount == appendedEntries && keyframeCount == appendedKeyframes) {
+                return;
+            }
+
+            BinaryWriter out = new BinaryWriter();
+            if (rewrite) {
+                writeHeader(out);
+                writeRecords(out, 0, 0);
+            } else {
+                writeRecords(out, appendedEntries, appendedKeyframes);
+            }
+            data = out.toByteArray();
+
+            // Do czasu udanego zapisu plik jest niepewny - błąd wymusi zapis od nowa
+            appendFile = null;
+        }
+
+        if (rewrite) {
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            writeFully(temp, data, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } else {
+            writeFully(path, data, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        synchronized (this) {
+            appendFile = path;
+            appendedEntries = entryCount;
+            appendedKeyframes = keyframeCount;
+        }
+    }
+
+    private static void writeFully(Path path, byte[] data, StandardOpenOption... options) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        Files.write(path, encode());
+    }
+
+    public static ReplayJournal load(Path path) throws IOException {
+        return decode(Files.readAllBytes(path));
+    }
+}
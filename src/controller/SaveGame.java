@@ -0,0 +1,614 @@
+package controller;
+
+import model.Enemy;
+import model.buildings.Building;
+import model.buildings.BuildingType;
+import model.buildings.SpaceInstallation;
+import model.buildings.SpaceInstallationType;
+import model.galaxy.Galaxy;
+import model.galaxy.StarSystem;
+import model.orbits.AsteroidField;
+import model.orbits.GasGiant;
+import model.orbits.OrbitObject;
+import model.orbits.OrbitSlot;
+import model.orbits.planets.Planet;
+import model.orbits.planets.PlanetAttribute;
+import model.orbits.planets.PlanetRichness;
+import model.orbits.planets.PlanetSize;
+import model.orbits.planets.PlanetType;
+import model.production.InstallationOrder;
+import model.production.ProductionOrder;
+import model.production.ProductionType;
+import model.ships.Fleet;
+import model.ships.ShipType;
+import model.tech.ResearchManager;
+import model.tech.Technology;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Binarny zapis stanu gry. Liczby jako varint (ujemne przez zigzag), enumy jako ordinal, systemy jako id,
+// nazwy gwiazd i imperiów w tablicy napisów na początku pliku. Właściciel to indeks: 0 = gracz, 1.. = przeciwnicy.
+// Połączenia zapisywane w kolejności sąsiadów (jak tablice CSR galaktyki), więc trasy po wczytaniu są identyczne.
+// Zmiana układu danych wymaga podniesienia VERSION - starsze wersje są odrzucane.
+public class SaveGame {
+
+    private static final int MAGIC = 0x47534156;  // "GSAV"
+    public static final int VERSION = 1;
+
+    private static final int ORBIT_PLANET = 0;
+    private static final int ORBIT_ASTEROIDS = 1;
+    private static final int ORBIT_GAS_GIANT = 2;
+
+    private static final ShipType[] SHIP_TYPES = ShipType.values();
+    private static final BuildingType[] BUILDING_TYPES = BuildingType.values();
+    private static final Technology[] TECHNOLOGIES = Technology.values();
+
+    private SaveGame() {
+    }
+
+    public static void save(Game game, Path path) throws IOException {
+        Files.write(path, encode(game));
+    }
+
+    public static Game load(Path path) throws IOException {
+        return decode(Files.readAllBytes(path));
+    }
+
+//    Musi być wywołane w wątku gry - odczytuje stan bez blokad
+    public static byte[] encode(Game game) {
+        return new Encoder(game).encode();
+    }
+
+    public static Game decode(byte[] data) throws IOException {
+        try {
+            return new Decoder(data).decode();
+        } catch (RuntimeException e) {
+            throw new IOException("Uszkodzony plik zapisu", e);
+        }
+    }
+
+    private static class Encoder {
+        private final Game game;
+        private final Galaxy galaxy;
+        private final List<Enemy> enemies = new ArrayList<>();
+        private final BinaryWriter out = new BinaryWriter();
+        private final Map<String, Integer> stringIndex = new HashMap<>();
+
+        Encoder(Game game) {
+            this.game = game;
+            this.galaxy = game.getGalaxy();
+            enemies.addAll(galaxy.getEnemies());
+        }
+
+        byte[] encode() {
+            List<StarSystem> systems = galaxy.getSystems();
+
+            out.writeInt(MAGIC);
+            out.writeVarInt(VERSION);
+
+            out.writeLong(galaxy.getSeed());
+            out.writeVarInt(game.getTurn());
+            out.writeSignedVarInt(game.getTotalCredits());
+            out.writeBoolean(game.isGameOver());
+            out.writeBoolean(game.hasPlayerWon());
+
+            writeStringTable(systems);
+
+            out.writeVarInt(enemies.size());
+            for (Enemy enemy : enemies) {
+                out.writeVarInt(stringIndex.get(enemy.getName()));
+                out.writeInt(enemy.getColor().getRGB());
+                writeSystemRef(enemy.getHomeSystem());
+            }
+            writeSystemRef(galaxy.getHomeSystem());
+
+            out.writeVarInt(systems.size());
+            for (StarSystem system : systems) {
+                out.writeVarInt(stringIndex.get(system.getName()));
+                out.writeSignedVarInt(system.getX());
+                out.writeSignedVarInt(system.getY());
+            }
+
+            int[] offsets = galaxy.getLaneOffsets();
+            int[] targets = galaxy.getLaneTargets();
+            for (int id = 0; id < systems.size(); id++) {
+                out.writeVarInt(offsets[id + 1] - offsets[id]);
+                for (int lane = offsets[id]; lane < offsets[id + 1]; lane++) {
+                    out.writeVarInt(targets[lane]);
+                }
+            }
+
+            for (StarSystem system : systems) {
+                writeSystemContents(system);
+            }
+
+            writeResearch(game.getResearchManager());
+            for (Enemy enemy : enemies) {
+                writeResearch(game.getResearchManager(enemy));
+            }
+
+            writeExplored(null);
+            for (Enemy enemy : enemies) {
+                writeExplored(enemy);
+            }
+
+            return out.toByteArray();
+        }
+
+        private void writeStringTable(List<StarSystem> systems) {
+            List<String> strings = new ArrayList<>();
+            for (Enemy enemy : enemies) {
+                if (stringIndex.putIfAbsent(enemy.getName(), strings.size()) == null) {
+                    strings.add(enemy.getName());
+                }
+            }
+            for (StarSystem system : systems) {
+                if (stringIndex.putIfAbsent(system.getName(), strings.size()) == null) {
+                    strings.add(system.getName());
+                }
+            }
+
+            out.writeVarInt(strings.size());
+            for (String s : strings) {
+                out.writeString(s);
+            }
+        }
+
+        private void writeSystemContents(StarSystem system) {
+            List<OrbitSlot> orbits = system.getOrbits();
+            out.writeVarInt(orbits.size());
+            for (OrbitSlot orbit : orbits) {
+                out.writeVarInt(orbit.getIndex());
+
+                OrbitObject object = orbit.getObject();
+                if (object instanceof Planet planet) {
+                    out.writeByte(ORBIT_PLANET);
+                    writePlanet(planet);
+                } else if (object instanceof AsteroidField asteroid) {
+                    out.writeByte(ORBIT_ASTEROIDS);
+                    writeInstallation(asteroid.getInstallation());
+                } else if (object instanceof GasGiant giant) {
+                    out.writeByte(ORBIT_GAS_GIANT);
+                    writeInstallation(giant.getInstallation());
+                } else {
+                    throw new IllegalStateException("Nieznany obiekt orbity: " + object);
+                }
+            }
+
+            writeInstallation(system.getBattleStation());
+
+            List<Fleet> fleets = system.getFleets();
+            out.writeVarInt(fleets.size());
+            for (Fleet fleet : fleets) {
+                writeFleet(fleet);
+            }
+        }
+
+        private void writePlanet(Planet planet) {
+            out.writeVarInt(planet.getPlanetType().ordinal());
+            out.writeVarInt(planet.getSize().ordinal());
+            out.writeVarInt(planet.getRichness().ordinal());
+            out.writeVarInt(planet.getAttribute().ordinal());
+            out.writeBoolean(planet.hasMoon());
+
+            out.writeBoolean(planet.isColonized());
+            writeOwner(planet.getOwner());
+            writeOwner(planet.getOriginalOwner());
+            out.writeVarInt(planet.getTotalPopulation());
+            out.writeVarInt(planet.getBaseMaxPopulation());
+            out.writeVarInt(planet.getPopulationOnFood());
+            out.writeVarInt(planet.getPopulationOnProduction());
+            out.writeVarInt(planet.getPopulationOnResearch());
+            out.writeLong(Double.doubleToRawLongBits(planet.getFoodAccumulated()));
+
+            out.writeVarInt(planet.getBuildings().size());
+            for (Building building : planet.getBuildings()) {
+                out.writeVarInt(building.getType().ordinal());
+            }
+
+            List<ProductionOrder> queue = planet.getBuildQueue();
+            out.writeVarInt(queue.size());
+            for (ProductionOrder order : queue) {
+                if (order.getProductionType() == ProductionType.BUILDING) {
+                    out.writeByte(0);
+                    out.writeVarInt(order.getBuildingType().ordinal());
+                } else {
+                    out.writeByte(1);
+                    out.writeVarInt(order.getShipType().ordinal());
+                }
+                out.writeSignedVarInt(order.getRemainingCost());
+            }
+
+            if (!planet.hasSavedProgress()) {
+                out.writeVarInt(0);
+                out.writeVarInt(0);
+                return;
+            }
+
+            // Zapamiętany postęp w kolejności enumów, niezależnie od kolejności w HashMap
+            int savedBuildings = 0;
+            for (BuildingType type : BUILDING_TYPES) {
+                if (planet.getSavedProgress(type) >= 0) savedBuildings++;
+            }
+            out.writeVarInt(savedBuildings);
+            for (BuildingType type : BUILDING_TYPES) {
+                if (planet.getSavedProgress(type) >= 0) {
+                    out.writeVarInt(type.ordinal());
+                    out.writeVarInt(planet.getSavedProgress(type));
+                }
+            }
+
+            int savedShips = 0;
+            for (ShipType type : SHIP_TYPES) {
+                if (planet.getSavedProgress(type) >= 0) savedShips++;
+            }
+            out.writeVarInt(savedShips);
+            for (ShipType type : SHIP_TYPES) {
+                if (planet.getSavedProgress(type) >= 0) {
+                    out.writeVarInt(type.ordinal());
+                    out.writeVarInt(planet.getSavedProgress(type));
+                }
+            }
+        }
+
+        private void writeInstallation(SpaceInstallation installation) {
+            out.writeBoolean(installation != null);
+            if (installation == null) return;
+
+            out.writeVarInt(installation.getType().ordinal());
+            writeOwner(installation.getOwner());
+            out.writeVarInt(installation.getCurrentHP());
+        }
+
+        private void writeFleet(Fleet fleet) {
+            writeOwner(fleet.getOwner());
+
+            int types = 0;
+            for (ShipType type : SHIP_TYPES) {
+                if (fleet.countShipType(type) > 0) types++;
+            }
+            out.writeVarInt(types);
+            for (ShipType type : SHIP_TYPES) {
+                if (fleet.countShipType(type) > 0) {
+                    out.writeVarInt(type.ordinal());
+                    out.writeVarInt(fleet.countShipType(type));
+                }
+            }
+
+            // Rozmiar trasy + 1, żeby odróżnić brak trasy od pustej
+            List<StarSystem> route = fleet.getRoute();
+            if (route == null) {
+                out.writeVarInt(0);
+            } else {
+                out.writeVarInt(route.size() + 1);
+                for (StarSystem system : route) {
+                    out.writeVarInt(system.getId());
+                }
+                out.writeVarInt(fleet.getCurrentRouteIndex());
+            }
+
+            InstallationOrder project = fleet.getCurrentProject();
+            out.writeBoolean(project != null);
+            if (project != null) {
+                out.writeVarInt(project.getType().ordinal());
+                out.writeSignedVarInt(project.getRemainingCost());
+                out.writeSignedVarInt(orbitPosition(fleet.getLocation(), project.getTarget()));
+            }
+        }
+
+        private int orbitPosition(StarSystem system, OrbitObject target) {
+            List<OrbitSlot> orbits = system.getOrbits();
+            for (int i = 0; i < orbits.size(); i++) {
+                if (orbits.get(i).getObject() == target) return i;
+            }
+            return -1;
+        }
+
+        private void writeResearch(ResearchManager research) {
+            Set<Technology> researched = research.getResearchedTechs();
+            out.writeVarInt(researched.size());
+            for (Technology tech : TECHNOLOGIES) {
+                if (researched.contains(tech)) {
+                    out.writeVarInt(tech.ordinal());
+                }
+            }
+
+            Technology current = research.getCurrentResearch();
+            out.writeVarInt(current != null ? current.ordinal() + 1 : 0);
+            out.writeVarInt(research.getCurrentProgress());
+
+            int saved = 0;
+            for (Technology tech : TECHNOLOGIES) {
+                if (research.getSavedProgress(tech) > 0) saved++;
+            }
+            out.writeVarInt(saved);
+            for (Technology tech : TECHNOLOGIES) {
+                if (research.getSavedProgress(tech) > 0) {
+                    out.writeVarInt(tech.ordinal());
+                    out.writeVarInt(research.getSavedProgress(tech));
+                }
+            }
+        }
+
+        private void writeExplored(Enemy owner) {
+            long[] words = game.getFogOfWar().getExplored(owner).toLongArray();
+            out.writeVarInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+
+        private void writeOwner(Enemy owner) {
+            if (owner == null) {
+                out.writeVarInt(0);
+                return;
+            }
+            int index = enemies.indexOf(owner);
+            if (index < 0) {
+                throw new IllegalStateException("Właściciel spoza galaktyki: " + owner.getName());
+            }
+            out.writeVarInt(index + 1);
+        }
+
+        private void writeSystemRef(StarSystem system) {
+            out.writeVarInt(system != null ? system.getId() + 1 : 0);
+        }
+    }
+
+    private static class Decoder {
+        private final BinaryReader in;
+        private final Galaxy galaxy = new Galaxy();
+        private final List<Enemy> enemies = new ArrayList<>();
+        private String[] strings;
+
+        Decoder(byte[] data) {
+            this.in = new BinaryReader(data);
+        }
+
+        Game decode() throws IOException {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("To nie jest plik zapisu gry");
+            }
+            int version = in.readVarInt();
+            if (version != VERSION) {
+                throw new IOException("Nieobsługiwana wersja zapisu: " + version);
+            }
+
+            galaxy.setSeed(in.readLong());
+            int turn = in.readVarInt();
+            int credits = in.readSignedVarInt();
+            boolean gameOver = in.readBoolean();
+            boolean playerWon = in.readBoolean();
+
+            strings = new String[in.readVarInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readString();
+            }
+
+            int enemyCount = in.readVarInt();
+            int[] enemyHomes = new int[enemyCount];
+            for (int i = 0; i < enemyCount; i++) {
+                String name = strings[in.readVarInt()];
+                Color color = new Color(in.readInt(), true);
+                enemies.add(new Enemy(name, color));
+                enemyHomes[i] = in.readVarInt();
+            }
+            int playerHome = in.readVarInt();
+
+            int systemCount = in.readVarInt();
+            for (int i = 0; i < systemCount; i++) {
+                String name = strings[in.readVarInt()];
+                int x = in.readSignedVarInt();
+                int y = in.readSignedVarInt();
+                galaxy.addSystem(new StarSystem(name, x, y));
+            }
+
+            List<StarSystem> systems = galaxy.getSystems();
+            for (StarSystem system : systems) {
+                int degree = in.readVarInt();
+                for (int i = 0; i < degree; i++) {
+                    system.addNeighbor(systems.get(in.readVarInt()));
+                }
+            }
+            galaxy.freezeLanes();
+
+            for (int i = 0; i < enemyCount; i++) {
+                enemies.get(i).setHomeSystem(systemRef(enemyHomes[i]));
+            }
+            galaxy.setHomeSystem(systemRef(playerHome));
+            for (Enemy enemy : enemies) {
+                galaxy.addEnemy(enemy);
+            }
+
+            for (StarSystem system : systems) {
+                readSystemContents(system);
+            }
+
+            ResearchManager research = readResearch();
+            List<ResearchManager> enemyResearch = new ArrayList<>();
+            for (int i = 0; i < enemyCount; i++) {
+                enemyResearch.add(readResearch());
+            }
+
+            Game game = new Game(galaxy, research, enemyResearch);
+            game.restoreCounters(turn, credits, gameOver, playerWon);
+
+            game.getFogOfWar().restoreExplored(null, readExplored());
+            for (Enemy enemy : enemies) {
+                game.getFogOfWar().restoreExplored(enemy, readExplored());
+            }
+
+            return game;
+        }
+
+        private void readSystemContents(StarSystem system) {
+            int orbitCount = in.readVarInt();
+            for (int i = 0; i < orbitCount; i++) {
+                int index = in.readVarInt();
+                int kind = in.readByte();
+
+                OrbitObject object = switch (kind) {
+                    case ORBIT_PLANET -> readPlanet();
+                    case ORBIT_ASTEROIDS -> {
+                        AsteroidField asteroid = new AsteroidField();
+                        asteroid.setInstallation(readInstallation());
+                        yield asteroid;
+                    }
+                    case ORBIT_GAS_GIANT -> {
+                        GasGiant giant = new GasGiant();
+                        giant.setInstallation(readInstallation());
+                        yield giant;
+                    }
+                    default -> throw new IllegalStateException("Nieznany typ orbity: " + kind);
+                };
+                system.addOrbit(new OrbitSlot(index, object));
+            }
+
+            SpaceInstallation station = readInstallation();
+            if (station != null) {
+                system.setBattleStation(station);
+            }
+
+            int fleetCount = in.readVarInt();
+            for (int i = 0; i < fleetCount; i++) {
+                system.addFleet(readFleet(system));
+            }
+        }
+
+        private Planet readPlanet() {
+            PlanetType type = PlanetType.values()[in.readVarInt()];
+            PlanetSize size = PlanetSize.values()[in.readVarInt()];
+            PlanetRichness richness = PlanetRichness.values()[in.readVarInt()];
+            PlanetAttribute attribute = PlanetAttribute.values()[in.readVarInt()];
+            Planet planet = new Planet(type, size, richness, attribute, in.readBoolean());
+
+            boolean colonized = in.readBoolean();
+            Enemy owner = readOwner();
+            Enemy originalOwner = readOwner();
+            int totalPopulation = in.readVarInt();
+            int maxPopulation = in.readVarInt();
+            int onFood = in.readVarInt();
+            int onProduction = in.readVarInt();
+            int onResearch = in.readVarInt();
+            double foodAccumulated = Double.longBitsToDouble(in.readLong());
+            planet.restoreState(colonized, owner, originalOwner, totalPopulation, maxPopulation,
+                    onFood, onProduction, onResearch, foodAccumulated);
+
+            int buildings = in.readVarInt();
+            for (int i = 0; i < buildings; i++) {
+                planet.addBuilding(BUILDING_TYPES[in.readVarInt()]);
+            }
+
+            int queueSize = in.readVarInt();
+            for (int i = 0; i < queueSize; i++) {
+                int kind = in.readByte();
+                ProductionOrder order = kind == 0
+                        ? new ProductionOrder(BUILDING_TYPES[in.readVarInt()])
+                        : new ProductionOrder(SHIP_TYPES[in.readVarInt()]);
+                order.setRemainingCost(in.readSignedVarInt());
+                planet.getBuildQueue().add(order);
+            }
+
+            int savedBuildings = in.readVarInt();
+            for (int i = 0; i < savedBuildings; i++) {
+                planet.restoreSavedProgress(BUILDING_TYPES[in.readVarInt()], in.readVarInt());
+            }
+            int savedShips = in.readVarInt();
+            for (int i = 0; i < savedShips; i++) {
+                planet.restoreSavedProgress(SHIP_TYPES[in.readVarInt()], in.readVarInt());
+            }
+
+            return planet;
+        }
+
+        private SpaceInstallation readInstallation() {
+            if (!in.readBoolean()) return null;
+
+            SpaceInstallationType type = SpaceInstallationType.values()[in.readVarInt()];
+            SpaceInstallation installation = new SpaceInstallation(type, readOwner());
+            installation.setCurrentHP(in.readVarInt());
+            return installation;
+        }
+
+        private Fleet readFleet(StarSystem system) {
+            Fleet fleet = new Fleet(system, readOwner());
+
+            int types = in.readVarInt();
+            for (int i = 0; i < types; i++) {
+                ShipType type = SHIP_TYPES[in.readVarInt()];
+                fleet.addShips(type, in.readVarInt());
+            }
+
+            int routeSize = in.readVarInt() - 1;
+            if (routeSize >= 0) {
+                List<StarSystem> route = new ArrayList<>(routeSize);
+                for (int i = 0; i < routeSize; i++) {
+                    route.add(galaxy.getSystem(in.readVarInt()));
+                }
+                fleet.restoreRoute(route, in.readVarInt());
+            }
+
+            if (in.readBoolean()) {
+                SpaceInstallationType type = SpaceInstallationType.values()[in.readVarInt()];
+                int remainingCost = in.readSignedVarInt();
+                int target = in.readSignedVarInt();
+
+                InstallationOrder project = new InstallationOrder(type,
+                        target >= 0 ? system.getOrbits().get(target).getObject() : null);
+                project.setRemainingCost(remainingCost);
+                fleet.restoreProject(project);
+            }
+
+            return fleet;
+        }
+
+        private ResearchManager readResearch() {
+            Set<Technology> researched = EnumSet.noneOf(Technology.class);
+            int count = in.readVarInt();
+            for (int i = 0; i < count; i++) {
+                researched.add(TECHNOLOGIES[in.readVarInt()]);
+            }
+
+            int current = in.readVarInt();
+            int progress = in.readVarInt();
+
+            Map<Technology, Integer> saved = new EnumMap<>(Technology.class);
+            int savedCount = in.readVarInt();
+            for (int i = 0; i < savedCount; i++) {
+                saved.put(TECHNOLOGIES[in.readVarInt()], in.readVarInt());
+            }
+
+            ResearchManager research = new ResearchManager();
+            research.restore(researched, current > 0 ? TECHNOLOGIES[current - 1] : null, progress, saved);
+            return research;
+        }
+
+        private BitSet readExplored() {
+            long[] words = new long[in.readVarInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            return BitSet.valueOf(words);
+        }
+
+        private Enemy readOwner() {
+            int index = in.readVarInt();
+            return index == 0 ? null : enemies.get(index - 1);
+        }
+
+        private StarSystem systemRef(int ref) {
+            return ref == 0 ? null : galaxy.getSystem(ref - 1);
+        }
+    }
+}
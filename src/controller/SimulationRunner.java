@@ -0,0 +1,162 @@
+package controller;
+
+import model.galaxy.Galaxy;
+import model.galaxy.MapSize;
+import model.galaxy.StarSystem;
+import model.ships.Fleet;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Symulacja bez interfejsu: N gier AI kontra AI po M tur, mierzy przepustowość tur i zużycie pamięci.
+// Użycie: java -cp out:resources controller.SimulationRunner [--games N] [--turns M] [--size SMALL|MEDIUM|LARGE] [--seed S]
+//        [--enemies E]
+public class SimulationRunner {
+
+    private final int games;
+    private final int turns;
+    private final MapSize size;
+    private final long seed;
+    private final int enemies;
+
+    public SimulationRunner(int games, int turns, MapSize size, long seed) {
+        this(games, turns, size, seed, 1);
+    }
+
+    public SimulationRunner(int games, int turns, MapSize size, long seed, int enemies) {
+        this.games = games;
+        this.turns = turns;
+        this.size = size;
+        this.seed = seed;
+        this.enemies = enemies;
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        int games = 1;
+        int turns = 200;
+        MapSize size = MapSize.LARGE;
+        long seed = new SplittableRandom().nextLong();
+        int enemies = 1;
+
+        for (int i = 0; i < args.length - 1; i += 2) {
+            switch (args[i]) {
+                case "--games" -> games = Integer.parseInt(args[i + 1]);
+                case "--turns" -> turns = Integer.parseInt(args[i + 1]);
+                case "--size" -> size = MapSize.valueOf(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--enemies" -> enemies = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Nieznany parametr: " + args[i]);
+            }
+        }
+
+        new SimulationRunner(games, turns, size, seed, enemies).run();
+    }
+
+    public void run() {
+        resetPeakHeap();
+
+        List<Long> latencies = new ArrayList<>();
+        long totalNanos = 0;
+        int playerWins = 0;
+        int enemyWins = 0;
+
+        for (int g = 1; g <= games; g++) {
+            // Kolejne gry dostają kolejne seedy, więc każdą można odtworzyć osobno
+            long gameSeed = seed + g - 1;
+            Galaxy galaxy = GalaxyGenerator.generate(size, size.getStarCount(), gameSeed, enemies);
+            Game game = new Game(galaxy);
+
+            // Strona gracza również sterowana przez AI (enemy == null oznacza gracza)
+            EnemyController playerAI = new EnemyController(null, galaxy, game.getResearchManager(), game.getFogOfWar());
+            playerAI.setOpponentResearch(game::getResearchManager);
+
+            int played = 0;
+            while (played < turns && !game.isGameOver()) {
+                playerAI.processTurn();
+
+                long start = System.nanoTime();
+                game.nextTurn();
+                long elapsed = System.nanoTime() - start;
+
+                latencies.add(elapsed);
+                totalNanos += elapsed;
+                played++;
+
+                colonizeWithIdleFleets(galaxy, playerAI);
+            }
+
+            if (game.isGameOver()) {
+                if (game.hasPlayerWon()) playerWins++;
+                else enemyWins++;
+            }
+
+            System.out.println("Gra " + g + "/" + games + " (seed " + gameSeed + "): " + played + " tur" +
+                    (game.isGameOver() ? ", zwycięzca: " + (game.hasPlayerWon() ? "gracz" : "przeciwnik") : ""));
+        }
+
+        printSummary(latencies, totalNanos, playerWins, enemyWins);
+    }
+
+    // W grze z interfejsem gracz kolonizuje ręcznie, tutaj robi to AI po dotarciu floty
+    private void colonizeWithIdleFleets(Galaxy galaxy, EnemyController playerAI) {
+        for (StarSystem system : galaxy.getSystems()) {
+            for (Fleet fleet : new ArrayList<>(system.getFleets())) {
+                if (fleet.getOwner() == null && !fleet.isMoving()) {
+                    playerAI.colonizePlanet(fleet, system);
+                }
+            }
+        }
+    }
+
+    private void printSummary(List<Long> latencies, long totalNanos, int playerWins, int enemyWins) {
+        if (latencies.isEmpty()) {
+            System.out.println("Nie rozegrano żadnej tury");
+            return;
+        }
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+
+        double seconds = totalNanos / 1_000_000_000.0;
+
+        System.out.println();
+        System.out.println("Mapa: " + size + ", przeciwników: " + enemies + ", gier: " + games + ", tur łącznie: " + sorted.length);
+        System.out.printf("Tury/s: %.1f%n", sorted.length / seconds);
+        System.out.printf("nextTurn p50: %.3f ms, p99: %.3f ms, max: %.3f ms%n",
+                percentile(sorted, 0.50) / 1_000_000.0,
+                percentile(sorted, 0.99) / 1_000_000.0,
+                sorted[sorted.length - 1] / 1_000_000.0);
+        System.out.printf("Szczytowe zużycie sterty: %.1f MB%n", peakHeapBytes() / (1024.0 * 1024.0));
+        System.out.println("Wygrane gracza: " + playerWins + ", wygrane przeciwnika: " + enemyWins);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
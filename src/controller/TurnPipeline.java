@@ -0,0 +1,30 @@
+package controller;
+
+import model.galaxy.StarSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+// Wykonuje jedną fazę tury dla wszystkich systemów. Systemy w obrębie fazy nie wpływają na siebie,
+// więc przy dużych mapach liczone są równolegle, a wyniki zawsze wracają w kolejności listy systemów.
+public class TurnPipeline {
+
+    // Poniżej tego progu narzut wątków jest większy niż zysk - liczymy sekwencyjnie
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    public <R> List<R> map(List<StarSystem> systems, Function<StarSystem, R> phase) {
+        if (systems.size() < PARALLEL_THRESHOLD) {
+            List<R> results = new ArrayList<>(systems.size());
+            for (StarSystem system : systems) {
+                results.add(phase.apply(system));
+            }
+            return results;
+        }
+
+        return POOL.submit(() -> systems.parallelStream().map(phase).toList()).join();
+    }
+}
@@ -0,0 +1,13 @@
+package controller;
+
+// Postęp rozliczania tury. Wywoływane w wątku, który liczy turę - nie w wątku Swinga.
+public interface TurnProgressListener {
+
+    void phaseStarted(int phase, int phaseCount, String name);
+
+//    Sprawdzane na początku każdej fazy. Przerwana tura zostawia grę w połowie rozliczenia,
+//    więc wywołujący musi odtworzyć stan sprzed tury (np. z SaveGame.encode).
+    default boolean isCancelled() {
+        return false;
+    }
+}
@@ -376,7 +376,7 @@ public enum BuildingType {
 
     public boolean isAvailable(ResearchManager researchManager) {
         if (techRequirement == null) return true;
-        return researchManager.isUnlocked(techRequirement);
+        return researchManager.isUnlocked(this);
     }
 
     public String getEffectsDescription() {
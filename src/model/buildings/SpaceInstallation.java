@@ -35,6 +35,10 @@ public class SpaceInstallation {
         return maxHP;
     }
 
+    public void setCurrentHP(int currentHP) {
+        this.currentHP = Math.max(0, Math.min(currentHP, maxHP));
+    }
+
     public int getDefense() {
         if (type == SpaceInstallationType.BATTLE_STATION) {
             return 50;
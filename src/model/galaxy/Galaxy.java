@@ -1,19 +1,224 @@
 package model.galaxy;
 
 import model.Enemy;
+import model.orbits.OrbitSlot;
+import model.orbits.planets.Planet;
+import model.ships.Fleet;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Galaxy {
     private List<StarSystem> systems = new ArrayList<>();
     private StarSystem homeSystem;
-    private Enemy enemy;
+    private final List<Enemy> enemies = new ArrayList<>();
+    private long seed;
+
+    private final OwnerIndex ownerIndex = new OwnerIndex(this);
+
+    private SpatialGrid spatialIndex;
+    private volatile RoutingTable routingTable;
+
+    // Połączenia w formacie CSR: sąsiedzi systemu o id i to laneTargets[laneOffsets[i] .. laneOffsets[i + 1])
+    private int[] laneOffsets;
+    private int[] laneTargets;
+    private double maxLaneLength;
+
+    private final List<GalaxyListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object listenerLock = new Object();
 
     public List<StarSystem> getSystems() {
         return systems;
     }
 
+    public StarSystem getSystem(int id) {
+        return systems.get(id);
+    }
+
+    public void addSystem(StarSystem system) {
+        system.attach(this, systems.size());
+        systems.add(system);
+        ownerIndex.markChanged(system.getId());
+        invalidateLanes();
+        if (spatialIndex != null) {
+            spatialIndex.add(system);
+        }
+    }
+
+    public SpatialGrid getSpatialIndex() {
+        if (spatialIndex == null) {
+            rebuildSpatialIndex();
+        }
+        return spatialIndex;
+    }
+
+//    Trzeba wywołać po przesunięciu systemów (setX/setY), indeks nie śledzi zmian współrzędnych
+    public void rebuildSpatialIndex() {
+        rebuildSpatialIndex(defaultCellSize());
+    }
+
+    public void rebuildSpatialIndex(double cellSize) {
+        spatialIndex = new SpatialGrid(cellSize);
+        for (StarSystem system : systems) {
+            spatialIndex.add(system);
+        }
+    }
+
+    // Komórka dobrana tak, żeby średnio mieściła kilka systemów
+    private double defaultCellSize() {
+        if (systems.isEmpty()) return 100;
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (StarSystem s : systems) {
+            minX = Math.min(minX, s.getX());
+            minY = Math.min(minY, s.getY());
+            maxX = Math.max(maxX, s.getX());
+            maxY = Math.max(maxY, s.getY());
+        }
+
+        double area = Math.max(1.0, (double) (maxX - minX + 1) * (maxY - minY + 1));
+        return Math.max(16, Math.sqrt(area / systems.size()) * 2);
+    }
+
+//    Budowana przy pierwszym zapytaniu po zmianie połączeń
+    public RoutingTable getRoutingTable() {
+        RoutingTable table = routingTable;
+        if (table == null) {
+            synchronized (this) {
+                table = routingTable;
+                if (table == null) {
+                    table = RoutingTable.build(this);
+                    routingTable = table;
+                }
+            }
+        }
+        return table;
+    }
+
+//    Zamraża połączenia do tablic int - wywoływane po zakończeniu generowania,
+//    a ponownie automatycznie, jeśli później dojdzie nowe połączenie
+    public synchronized void freezeLanes() {
+        int[] offsets = new int[systems.size() + 1];
+        for (int i = 0; i < systems.size(); i++) {
+            offsets[i + 1] = offsets[i] + systems.get(i).getNeighbors().size();
+        }
+
+        int[] targets = new int[offsets[systems.size()]];
+        double longest = 0;
+        for (int i = 0; i < systems.size(); i++) {
+            StarSystem system = systems.get(i);
+            int at = offsets[i];
+            for (StarSystem neighbor : system.getNeighbors()) {
+                targets[at++] = neighbor.getId();
+                longest = Math.max(longest, Math.hypot(neighbor.getX() - system.getX(), neighbor.getY() - system.getY()));
+            }
+        }
+
+        maxLaneLength = longest;
+        laneTargets = targets;
+        laneOffsets = offsets;
+    }
+
+    public int[] getLaneOffsets() {
+        ensureLanesFrozen();
+        return laneOffsets;
+    }
+
+    public int[] getLaneTargets() {
+        ensureLanesFrozen();
+        return laneTargets;
+    }
+
+//    Najdłuższe połączenie - każde połączenie przecinające prostokąt ma oba końce w prostokącie
+//    powiększonym o tę wartość, więc wystarczy zapytać indeks przestrzenny o taki obszar
+    public double getMaxLaneLength() {
+        ensureLanesFrozen();
+        return maxLaneLength;
+    }
+
+    private synchronized void ensureLanesFrozen() {
+        if (laneOffsets == null) {
+            freezeLanes();
+        }
+    }
+
+    synchronized void invalidateLanes() {
+        laneOffsets = null;
+        laneTargets = null;
+        routingTable = null;
+    }
+
+    public void addListener(GalaxyListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GalaxyListener listener) {
+        listeners.remove(listener);
+    }
+
+//    Powiadomienia idą pod wspólną blokadą - faza ekonomii buduje statki równolegle w wielu systemach
+    public void fireFleetAdded(StarSystem system, Fleet fleet) {
+        ownerIndex.markChanged(system.getId());
+        if (listeners.isEmpty()) return;
+        synchronized (listenerLock) {
+            for (GalaxyListener listener : listeners) {
+                listener.fleetAdded(system, fleet);
+            }
+        }
+    }
+
+    public void fireFleetRemoved(StarSystem system, Fleet fleet) {
+        ownerIndex.markChanged(system.getId());
+        if (listeners.isEmpty()) return;
+        synchronized (listenerLock) {
+            for (GalaxyListener listener : listeners) {
+                listener.fleetRemoved(system, fleet);
+            }
+        }
+    }
+
+    public void fireFleetChanged(Fleet fleet) {
+        if (listeners.isEmpty()) return;
+        synchronized (listenerLock) {
+            for (GalaxyListener listener : listeners) {
+                listener.fleetChanged(fleet);
+            }
+        }
+    }
+
+    public void fireColonyChanged(StarSystem system, Planet planet) {
+        ownerIndex.markChanged(system.getId());
+        if (listeners.isEmpty()) return;
+        synchronized (listenerLock) {
+            for (GalaxyListener listener : listeners) {
+                listener.colonyChanged(system, planet);
+            }
+        }
+    }
+
+    public void firePlanetChanged(StarSystem system, Planet planet) {
+        if (listeners.isEmpty()) return;
+        synchronized (listenerLock) {
+            for (GalaxyListener listener : listeners) {
+                listener.planetChanged(system, planet);
+            }
+        }
+    }
+
+    public void fireInstallationChanged(StarSystem system) {
+        ownerIndex.markChanged(system.getId());
+        if (listeners.isEmpty()) return;
+        synchronized (listenerLock) {
+            for (GalaxyListener listener : listeners) {
+                listener.installationChanged(system);
+            }
+        }
+    }
+
     public StarSystem getHomeSystem() {
         return homeSystem;
     }
@@ -22,11 +227,84 @@ public class Galaxy {
         this.homeSystem = homeSystem;
     }
 
-    public Enemy getEnemy() {
-        return enemy;
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public List<Enemy> getEnemies() {
+        return Collections.unmodifiableList(enemies);
+    }
+
+    public void addEnemy(Enemy enemy) {
+        enemies.add(enemy);
+        ownerIndex.addOwner();
+    }
+
+//    Kod właściciela jak w zapisie gry i raportach walk: 0 = gracz, n = n-ty przeciwnik, -1 spoza galaktyki
+    public int getOwnerCode(Enemy owner) {
+        if (owner == null) return 0;
+        int index = enemies.indexOf(owner);
+        return index < 0 ? -1 : index + 1;
+    }
+
+    public Enemy getOwner(int code) {
+        return code == 0 ? null : enemies.get(code - 1);
+    }
+
+    public int getOwnerCount() {
+        return enemies.size() + 1;
+    }
+
+//    Systemy z koloniami, flotami albo posterunkiem właściciela, w kolejności id
+    public List<StarSystem> getColonySystems(Enemy owner) {
+        return ownedSystems(owner, OwnerIndex.COLONIES);
     }
 
-    public void setEnemy(Enemy enemy) {
-        this.enemy = enemy;
+    public List<StarSystem> getFleetSystems(Enemy owner) {
+        return ownedSystems(owner, OwnerIndex.FLEETS);
+    }
+
+    public List<StarSystem> getStationSystems(Enemy owner) {
+        return ownedSystems(owner, OwnerIndex.STATIONS);
+    }
+
+    public List<Planet> getColonies(Enemy owner) {
+        List<Planet> colonies = new ArrayList<>();
+        for (StarSystem system : getColonySystems(owner)) {
+            for (OrbitSlot orbit : system.getOrbits()) {
+                if (orbit.getObject() instanceof Planet planet && planet.isColonized() && planet.getOwner() == owner) {
+                    colonies.add(planet);
+                }
+            }
+        }
+        return colonies;
+    }
+
+    public List<Fleet> getFleets(Enemy owner) {
+        List<Fleet> fleets = new ArrayList<>();
+        for (StarSystem system : getFleetSystems(owner)) {
+            for (Fleet fleet : system.getFleets()) {
+                if (fleet.getOwner() == owner) {
+                    fleets.add(fleet);
+                }
+            }
+        }
+        return fleets;
+    }
+
+    private List<StarSystem> ownedSystems(Enemy owner, int kind) {
+        int code = getOwnerCode(owner);
+        if (code < 0) return List.of();
+
+        BitSet ids = ownerIndex.systems(code, kind);
+        List<StarSystem> result = new ArrayList<>(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            result.add(systems.get(id));
+        }
+        return result;
     }
-}
\ No newline at end of file
+}
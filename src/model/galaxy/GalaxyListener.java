@@ -0,0 +1,25 @@
+package model.galaxy;
+
+import model.orbits.planets.Planet;
+import model.ships.Fleet;
+
+// Powiadomienia o zmianach stanu galaktyki - pozwalają utrzymywać dane pochodne (mgła wojny, liczniki)
+// bez przeliczania wszystkiego co turę. Wywoływane pod blokadą galaktyki, także z wątków fazy ekonomii.
+public interface GalaxyListener {
+
+    default void fleetAdded(StarSystem system, Fleet fleet) {}
+
+    default void fleetRemoved(StarSystem system, Fleet fleet) {}
+
+    // Zmiana składu floty (dodany lub usunięty statek)
+    default void fleetChanged(Fleet fleet) {}
+
+    // Kolonizacja planety albo zmiana jej właściciela
+    default void colonyChanged(StarSystem system, Planet planet) {}
+
+    // Zmiana populacji, jej przydziału, budynków albo kolejki budowy skolonizowanej planety
+    default void planetChanged(StarSystem system, Planet planet) {}
+
+    // Ukończona lub zniszczona instalacja kosmiczna (kopalnia, posterunek bojowy)
+    default void installationChanged(StarSystem system) {}
+}
@@ -3,12 +3,18 @@ package model.galaxy;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.SplittableRandom;
 
 public class GalaxyMask {
 
-    private BufferedImage image;
+    private final int width;
+    private final int height;
+
+    // Jasność każdego piksela (0-255) liczona raz przy wczytaniu - getRGB w pętli losowania jest za wolne
+    private final byte[] brightness;
 
     public GalaxyMask(String path) {
+        BufferedImage image;
         try {
             image = ImageIO.read(
                     GalaxyMask.class.getResource(path)
@@ -16,32 +22,42 @@ public class GalaxyMask {
         } catch (IOException | IllegalArgumentException e) {
             throw new RuntimeException("Nie można wczytać maski galaktyki", e);
         }
+
+        width = image.getWidth();
+        height = image.getHeight();
+        brightness = new byte[width * height];
+
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        for (int i = 0; i < pixels.length; i++) {
+            // Wydobycie rgb z piksela
+            int rgb = pixels[i];
+            int r = (rgb >> 16) & 0xff;
+            int g = (rgb >> 8) & 0xff;
+            int b = rgb & 0xff;
+
+            brightness[i] = (byte) ((r + g + b) / 3);
+        }
     }
 
 //    Sprawdza czy dane miejsce może być użyte do umieszczenia gwiazdy na podstawie jasności pikselu
     public boolean isAllowed(
             int x, int y,
             int worldWidth, int worldHeight,
-            double densityMultiplier
+            double densityMultiplier,
+            SplittableRandom random
     ) {
         // Mapowanie współrzędnych świata na współrzędne obrazu maski
-        int imgX = (int) ((double) x / worldWidth * image.getWidth());
-        int imgY = (int) ((double) y / worldHeight * image.getHeight());
+        int imgX = (int) ((double) x / worldWidth * width);
+        int imgY = (int) ((double) y / worldHeight * height);
 
         if (imgX < 0 || imgY < 0 ||
-                imgX >= image.getWidth() ||
-                imgY >= image.getHeight()) {
+                imgX >= width ||
+                imgY >= height) {
             return false;
         }
 
-        // Wydobycie rgb z piksela
-        int rgb = image.getRGB(imgX, imgY);
-        int r = (rgb >> 16) & 0xff;
-        int g = (rgb >> 8) & 0xff;
-        int b = rgb & 0xff;
-
-        // Obliczenie jasności piksela (0-255)
-        int brightness = (r + g + b) / 3;
+        // Jasność piksela (0-255)
+        int brightness = this.brightness[imgY * width + imgX] & 0xff;
 
         // Zbyt ciemne obszary = przestrzeń poza galaktyką
         if (brightness > 140) return false;
@@ -55,7 +71,7 @@ public class GalaxyMask {
         double chance = normalized * densityMultiplier;
 
         // Im wyższa szansa, tym częstszy spawn
-        return Math.random() < chance;
+        return random.nextDouble() < chance;
     }
 
-}
\ No newline at end of file
+}
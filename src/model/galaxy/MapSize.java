@@ -1,17 +1,29 @@
 package model.galaxy;
 
 public enum MapSize {
-    SMALL(15),
-    MEDIUM(25),
-    LARGE(40);
+    SMALL(15, 0.9, 45_000),
+    MEDIUM(25, 1.2, 38_000),
+    LARGE(40, 1.6, 30_000);
 
     private final int starCount;
+    private final double densityMultiplier;
+    private final double areaPerStar;
 
-    MapSize(int starCount) {
+    MapSize(int starCount, double densityMultiplier, double areaPerStar) {
         this.starCount = starCount;
+        this.densityMultiplier = densityMultiplier;
+        this.areaPerStar = areaPerStar;
     }
 
     public int getStarCount() {
         return starCount;
     }
+
+    public double getDensityMultiplier() {
+        return densityMultiplier;
+    }
+
+    public double getAreaPerStar() {
+        return areaPerStar;
+    }
 }
@@ -0,0 +1,88 @@
+package model.galaxy;
+
+import model.buildings.SpaceInstallation;
+import model.orbits.OrbitSlot;
+import model.orbits.planets.Planet;
+import model.ships.Fleet;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// Majątek każdego właściciela jako zbiory id systemów z jego koloniami, flotami i posterunkami.
+// Zdarzenia galaktyki tylko oznaczają system jako zmieniony, a zbiory poprawiane są przy najbliższym
+// zapytaniu - tylko w systemach oznaczonych. Zapytanie przegląda więc systemy jednego właściciela
+// (zawsze w kolejności id), a nie całą galaktykę.
+final class OwnerIndex {
+
+    static final int COLONIES = 0;
+    static final int FLEETS = 1;
+    static final int STATIONS = 2;
+    private static final int KINDS = 3;
+
+    private final Galaxy galaxy;
+
+    // Indeks listy = kod właściciela (0 = gracz, n = n-ty przeciwnik)
+    private final List<BitSet[]> owners = new ArrayList<>();
+
+    // Zapisywane także z wątków fazy ekonomii - dostęp tylko pod blokadą obiektu
+    private final BitSet dirty = new BitSet();
+
+    OwnerIndex(Galaxy galaxy) {
+        this.galaxy = galaxy;
+        addOwner();
+    }
+
+    synchronized void addOwner() {
+        BitSet[] sets = new BitSet[KINDS];
+        for (int kind = 0; kind < KINDS; kind++) {
+            sets[kind] = new BitSet();
+        }
+        owners.add(sets);
+
+        // Majątek nowego właściciela mógł powstać przed rejestracją - np. przy wczytywaniu zapisu
+        dirty.set(0, galaxy.getSystems().size());
+    }
+
+    synchronized void markChanged(int systemId) {
+        dirty.set(systemId);
+    }
+
+//    Kopia zbioru - wywołujący może zmieniać galaktykę w trakcie przeglądania wyniku
+    synchronized BitSet systems(int owner, int kind) {
+        refresh();
+        return (BitSet) owners.get(owner)[kind].clone();
+    }
+
+    private void refresh() {
+        for (int id = dirty.nextSetBit(0); id >= 0; id = dirty.nextSetBit(id + 1)) {
+            for (BitSet[] sets : owners) {
+                for (BitSet set : sets) {
+                    set.clear(id);
+                }
+            }
+
+            StarSystem system = galaxy.getSystem(id);
+            for (OrbitSlot orbit : system.getOrbits()) {
+                if (orbit.getObject() instanceof Planet planet && planet.isColonized()) {
+                    mark(galaxy.getOwnerCode(planet.getOwner()), COLONIES, id);
+                }
+            }
+            for (Fleet fleet : system.getFleets()) {
+                mark(galaxy.getOwnerCode(fleet.getOwner()), FLEETS, id);
+            }
+            SpaceInstallation station = system.getBattleStation();
+            if (station != null) {
+                mark(galaxy.getOwnerCode(station.getOwner()), STATIONS, id);
+            }
+        }
+        dirty.clear();
+    }
+
+    // Właściciele spoza galaktyki (kod -1) nie są śledzeni
+    private void mark(int owner, int kind, int id) {
+        if (owner >= 0) {
+            owners.get(owner)[kind].set(id);
+        }
+    }
+}
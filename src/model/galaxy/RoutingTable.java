@@ -0,0 +1,176 @@
+package model.galaxy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+// Trasy między wszystkimi parami systemów, liczone raz po wygenerowaniu połączeń.
+// Dla każdego systemu startowego jeden BFS (równolegle), wynik trzymany w tablicach n*n:
+// poprzednik na najkrótszej trasie i liczba skoków. Zapytanie to tylko przejście po poprzednikach.
+// Kolejność odwiedzania sąsiadów jest taka sama jak w zwykłym BFS, więc trasy są identyczne.
+public class RoutingTable {
+
+    // Powyżej tego rozmiaru tablice n*n zajmowałyby za dużo pamięci - trasy liczone są wtedy na bieżąco
+    public static final int MAX_PRECOMPUTED_SYSTEMS = 2048;
+
+    private static final short NONE = -1;
+
+    private final List<StarSystem> systems;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int size;
+
+    // Wiersz [from * size ...] pochodzi z BFS uruchomionego z systemu from
+    private final short[] predecessor;
+    private final short[] hops;
+
+    private RoutingTable(List<StarSystem> systems, int[] offsets, int[] targets, short[] predecessor, short[] hops) {
+        this.systems = systems;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.size = systems.size();
+        this.predecessor = predecessor;
+        this.hops = hops;
+    }
+
+    public static RoutingTable build(Galaxy galaxy) {
+        List<StarSystem> snapshot = List.copyOf(galaxy.getSystems());
+        int n = snapshot.size();
+        int[] offsets = galaxy.getLaneOffsets();
+        int[] targets = galaxy.getLaneTargets();
+
+        if (n > MAX_PRECOMPUTED_SYSTEMS) {
+            return new RoutingTable(snapshot, offsets, targets, null, null);
+        }
+
+        short[] predecessor = new short[n * n];
+        short[] hops = new short[n * n];
+
+        IntStream.range(0, n).parallel().forEach(from -> {
+            int[] prev = new int[n];
+            int[] dist = new int[n];
+            bfs(offsets, targets, from, prev, dist, new int[n]);
+
+            int row = from * n;
+            for (int i = 0; i < n; i++) {
+                predecessor[row + i] = (short) prev[i];
+                hops[row + i] = (short) dist[i];
+            }
+        });
+
+        return new RoutingTable(snapshot, offsets, targets, predecessor, hops);
+    }
+
+    public boolean isPrecomputed() {
+        return predecessor != null;
+    }
+
+//    Liczba skoków między systemami albo -1, jeśli nie ma połączenia
+    public int hopDistance(StarSystem from, StarSystem to) {
+        int a = from.getId();
+        int b = to.getId();
+
+        if (isPrecomputed()) {
+            return hops[a * size + b];
+        }
+
+        int[] dist = new int[size];
+        bfs(offsets, targets, a, new int[size], dist, new int[size]);
+        return dist[b];
+    }
+
+//    Liczba skoków z systemu from do każdego systemu (indeks = id), -1 dla nieosiągalnych
+    public int[] hopDistancesFrom(StarSystem from) {
+        int a = from.getId();
+        int[] dist = new int[size];
+
+        if (isPrecomputed()) {
+            for (int i = 0; i < size; i++) {
+                dist[i] = hops[a * size + i];
+            }
+            return dist;
+        }
+
+        bfs(offsets, targets, a, new int[size], dist, new int[size]);
+        return dist;
+    }
+
+//    Trasa łącznie z systemem startowym i docelowym albo null, jeśli nie ma połączenia
+    public List<StarSystem> findPath(StarSystem from, StarSystem to) {
+        int a = from.getId();
+        int b = to.getId();
+
+        if (!isPrecomputed()) {
+            int[] prev = new int[size];
+            int[] dist = new int[size];
+            bfs(offsets, targets, a, prev, dist, new int[size]);
+            return reconstruct(b, dist[b], i -> prev[i]);
+        }
+
+        int row = a * size;
+        return reconstruct(b, hops[row + b], i -> predecessor[row + i]);
+    }
+
+//    Wersja bez alokacji: wpisuje trasę do podanej tablicy i zwraca jej długość (0 gdy brak trasy)
+    public int fillPath(StarSystem from, StarSystem to, StarSystem[] out) {
+        int a = from.getId();
+        int b = to.getId();
+
+        if (!isPrecomputed()) {
+            List<StarSystem> path = findPath(from, to);
+            if (path == null) return 0;
+            for (int i = 0; i < path.size(); i++) {
+                out[i] = path.get(i);
+            }
+            return path.size();
+        }
+
+        int row = a * size;
+        int length = hops[row + b];
+        if (length < 0) return 0;
+
+        int current = b;
+        for (int i = length; i >= 0; i--) {
+            out[i] = systems.get(current);
+            current = predecessor[row + current];
+        }
+        return length + 1;
+    }
+
+    private List<StarSystem> reconstruct(int destination, int length, IntUnaryOperator previous) {
+        if (length < 0) return null;
+
+        StarSystem[] path = new StarSystem[length + 1];
+        int current = destination;
+        for (int i = length; i >= 0; i--) {
+            path[i] = systems.get(current);
+            current = previous.applyAsInt(current);
+        }
+
+        return new ArrayList<>(Arrays.asList(path));
+    }
+
+    private static void bfs(int[] offsets, int[] targets, int start, int[] prev, int[] dist, int[] queue) {
+        Arrays.fill(dist, NONE);
+        Arrays.fill(prev, NONE);
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        dist[start] = 0;
+
+        while (head < tail) {
+            int current = queue[head++];
+            for (int lane = offsets[current]; lane < offsets[current + 1]; lane++) {
+                int neighbor = targets[lane];
+                if (dist[neighbor] < 0) {
+                    dist[neighbor] = dist[current] + 1;
+                    prev[neighbor] = current;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package model.galaxy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Jednorodna siatka nad współrzędnymi systemów - zapytania o promień, prostokąt i k najbliższych
+// sprawdzają tylko pobliskie komórki zamiast całej galaktyki.
+// Przy równych odległościach wygrywa system dodany wcześniej, więc wyniki są deterministyczne.
+public class SpatialGrid {
+
+    private final double cellSize;
+    private final List<StarSystem> items = new ArrayList<>();
+
+    // Komórki w tablicy obejmującej prostokąt [gridX, gridX + gridCols) x [gridY, gridY + gridRows), powiększanej przy dodawaniu
+    private Cell[] grid = new Cell[0];
+    private int gridX;
+    private int gridY;
+    private int gridCols;
+    private int gridRows;
+
+    private int minCellX = Integer.MAX_VALUE;
+    private int minCellY = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE;
+    private int maxCellY = Integer.MIN_VALUE;
+
+    private static class Cell {
+        int[] indexes = new int[4];
+        int size;
+
+        void add(int index) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+            }
+            indexes[size++] = index;
+        }
+    }
+
+    public SpatialGrid(double cellSize) {
+        this.cellSize = Math.max(1, cellSize);
+    }
+
+    public void add(StarSystem system) {
+        int index = items.size();
+        items.add(system);
+
+        int cx = cellOf(system.getX());
+        int cy = cellOf(system.getY());
+
+        ensureCovered(cx, cy);
+        int slot = (cy - gridY) * gridCols + (cx - gridX);
+        if (grid[slot] == null) {
+            grid[slot] = new Cell();
+        }
+        grid[slot].add(index);
+
+        minCellX = Math.min(minCellX, cx);
+        minCellY = Math.min(minCellY, cy);
+        maxCellX = Math.max(maxCellX, cx);
+        maxCellY = Math.max(maxCellY, cy);
+    }
+
+//    Usuwa system z indeksu (współrzędne muszą być takie same jak przy dodaniu)
+    public void remove(StarSystem system) {
+        Cell cell = cellAt(cellOf(system.getX()), cellOf(system.getY()));
+        if (cell == null) return;
+
+        for (int i = 0; i < cell.size; i++) {
+            if (items.get(cell.indexes[i]) == system) {
+                cell.indexes[i] = cell.indexes[--cell.size];
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+//    Czy jakikolwiek system leży bliżej niż radius (ściśle mniej)
+    public boolean anyWithin(double x, double y, double radius) {
+        double r2 = radius * radius;
+        int reach = (int) Math.ceil(radius / cellSize);
+        int cx = cellOf(x);
+        int cy = cellOf(y);
+
+        for (int gx = cx - reach; gx <= cx + reach; gx++) {
+            for (int gy = cy - reach; gy <= cy + reach; gy++) {
+                Cell cell = cellAt(gx, gy);
+                if (cell == null) continue;
+
+                for (int i = 0; i < cell.size; i++) {
+                    if (distanceSq(items.get(cell.indexes[i]), x, y) < r2) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+//    Systemy w promieniu (włącznie), posortowane od najbliższego
+    public List<StarSystem> withinRadius(double x, double y, double radius) {
+        double r2 = radius * radius;
+        int reach = (int) Math.ceil(radius / cellSize);
+        int cx = cellOf(x);
+        int cy = cellOf(y);
+
+        List<Integer> found = new ArrayList<>();
+        for (int gx = cx - reach; gx <= cx + reach; gx++) {
+            for (int gy = cy - reach; gy <= cy + reach; gy++) {
+                Cell cell = cellAt(gx, gy);
+                if (cell == null) continue;
+
+                for (int i = 0; i < cell.size; i++) {
+                    if (distanceSq(items.get(cell.indexes[i]), x, y) <= r2) {
+                        found.add(cell.indexes[i]);
+                    }
+                }
+            }
+        }
+        return sortedByDistance(found, x, y, found.size());
+    }
+
+//    Systemy w prostokącie świata (np. widok kamery), w kolejności dodania
+    public List<StarSystem> inRect(double minX, double minY, double maxX, double maxY) {
+        List<StarSystem> result = new ArrayList<>();
+
+        int fromX = Math.max(cellOf(minX), minCellX);
+        int toX = Math.min(cellOf(maxX), maxCellX);
+        int fromY = Math.max(cellOf(minY), minCellY);
+        int toY = Math.min(cellOf(maxY), maxCellY);
+
+        List<Integer> found = new ArrayList<>();
+        for (int gx = fromX; gx <= toX; gx++) {
+            for (int gy = fromY; gy <= toY; gy++) {
+                Cell cell = cellAt(gx, gy);
+                if (cell == null) continue;
+
+                for (int i = 0; i < cell.size; i++) {
+                    StarSystem s = items.get(cell.indexes[i]);
+                    if (s.getX() >= minX && s.getX() <= maxX && s.getY() >= minY && s.getY() <= maxY) {
+                        found.add(cell.indexes[i]);
+                    }
+                }
+            }
+        }
+
+        found.sort(null);
+        for (int index : found) {
+            result.add(items.get(index));
+        }
+        return result;
+    }
+
+    public StarSystem nearest(double x, double y, Predicate<StarSystem> filter) {
+        List<StarSystem> result = nearest(x, y, 1, Double.MAX_VALUE, filter);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+//    k najbliższych systemów spełniających filtr, nie dalej niż maxDistance, posortowane od najbliższego
+    public List<StarSystem> nearest(double x, double y, int k, double maxDistance, Predicate<StarSystem> filter) {
+        List<StarSystem> result = new ArrayList<>();
+        if (k <= 0) return result;
+
+        visitByDistance(x, y, maxDistance, s -> {
+            if (filter == null || filter.test(s)) {
+                result.add(s);
+            }
+            return result.size() < k;
+        });
+        return result;
+    }
+
+//    Podaje systemy od najbliższego (nie dalej niż maxDistance), dopóki visitor zwraca true.
+//    Przeszukuje kolejne pierścienie komórek wokół punktu - system jest wydawany dopiero wtedy,
+//    gdy żaden nieodwiedzony pierścień nie może zawierać bliższego, więc dalekie komórki nie są ruszane.
+    public void visitByDistance(double x, double y, double maxDistance, Predicate<StarSystem> visitor) {
+        if (items.isEmpty()) return;
+
+        int cx = cellOf(x);
+        int cy = cellOf(y);
+        int maxRing = Math.max(
+                Math.max(Math.abs(cx - minCellX), Math.abs(maxCellX - cx)),
+                Math.max(Math.abs(cy - minCellY), Math.abs(maxCellY - cy))
+        );
+
+        double maxDistanceSq = maxDistance == Double.MAX_VALUE ? Double.MAX_VALUE : maxDistance * maxDistance;
+        CandidateHeap heap = new CandidateHeap();
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (Math.max(0, ring - 1) * cellSize > maxDistance) break;
+
+            for (int gx = Math.max(cx - ring, minCellX); gx <= Math.min(cx + ring, maxCellX); gx++) {
+                // Brzegowe kolumny pierścienia w całości, środkowe tylko górna i dolna komórka
+                boolean edgeColumn = Math.abs(gx - cx) == ring;
+                int step = edgeColumn ? 1 : Math.max(1, 2 * ring);
+
+                for (int gy = cy - ring; gy <= cy + ring; gy += step) {
+                    Cell cell = cellAt(gx, gy);
+                    if (cell == null) continue;
+
+                    for (int i = 0; i < cell.size; i++) {
+                        double d = distanceSq(items.get(cell.indexes[i]), x, y);
+                        if (d <= maxDistanceSq) {
+                            heap.push(cell.indexes[i], d);
+                        }
+                    }
+                }
+            }
+
+            // Wszystko poza przejrzanymi pierścieniami jest dalej niż ring * cellSize
+            double safe = ring * cellSize;
+            double safeSq = safe * safe;
+            while (heap.size > 0 && heap.peekDistance() <= safeSq) {
+                if (!visitor.test(items.get(heap.pop()))) return;
+            }
+        }
+
+        while (heap.size > 0) {
+            if (!visitor.test(items.get(heap.pop()))) return;
+        }
+    }
+
+    // Kopiec minimalny po (odległość, kolejność dodania) na prymitywnych tablicach
+    private static class CandidateHeap {
+        int[] indexes = new int[16];
+        double[] distances = new double[16];
+        int size;
+
+        void push(int index, double distance) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int pos = size++;
+            while (pos > 0) {
+                int parent = (pos - 1) / 2;
+                if (!less(index, distance, indexes[parent], distances[parent])) break;
+                indexes[pos] = indexes[parent];
+                distances[pos] = distances[parent];
+                pos = parent;
+            }
+            indexes[pos] = index;
+            distances[pos] = distance;
+        }
+
+        double peekDistance() {
+            return distances[0];
+        }
+
+        int pop() {
+            int result = indexes[0];
+            size--;
+            if (size > 0) {
+                int index = indexes[size];
+                double distance = distances[size];
+                int pos = 0;
+                while (true) {
+                    int child = pos * 2 + 1;
+                    if (child >= size) break;
+                    if (child + 1 < size && less(indexes[child + 1], distances[child + 1], indexes[child], distances[child])) {
+                        child++;
+                    }
+                    if (!less(indexes[child], distances[child], index, distance)) break;
+                    indexes[pos] = indexes[child];
+                    distances[pos] = distances[child];
+                    pos = child;
+                }
+                indexes[pos] = index;
+                distances[pos] = distance;
+            }
+            return result;
+        }
+
+        private static boolean less(int indexA, double distanceA, int indexB, double distanceB) {
+            return distanceA < distanceB || (distanceA == distanceB && indexA < indexB);
+        }
+    }
+
+    private List<StarSystem> sortedByDistance(List<Integer> indexes, double x, double y, int limit) {
+        indexes.sort((a, b) -> {
+            int cmp = Double.compare(distanceSq(items.get(a), x, y), distanceSq(items.get(b), x, y));
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+
+        List<StarSystem> result = new ArrayList<>(Math.min(limit, indexes.size()));
+        for (int i = 0; i < indexes.size() && i < limit; i++) {
+            result.add(items.get(indexes.get(i)));
+        }
+        return result;
+    }
+
+    private static double distanceSq(StarSystem s, double x, double y) {
+        double dx = s.getX() - x;
+        double dy = s.getY() - y;
+        return dx * dx + dy * dy;
+    }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private Cell cellAt(int cx, int cy) {
+        int col = cx - gridX;
+        int row = cy - gridY;
+        if (col < 0 || row < 0 || col >= gridCols || row >= gridRows) return null;
+        return grid[row * gridCols + col];
+    }
+
+    private void ensureCovered(int cx, int cy) {
+        if (gridCols > 0 && cx >= gridX && cy >= gridY && cx < gridX + gridCols && cy < gridY + gridRows) {
+            return;
+        }
+
+        int fromX = gridCols > 0 ? Math.min(gridX, cx) : cx;
+        int fromY = gridRows > 0 ? Math.min(gridY, cy) : cy;
+        int toX = gridCols > 0 ? Math.max(gridX + gridCols, cx + 1) : cx + 1;
+        int toY = gridRows > 0 ? Math.max(gridY + gridRows, cy + 1) : cy + 1;
+
+        // Zapas w każdą stronę, żeby kolejne dodania nie przebudowywały tablicy za każdym razem
+        int slackX = Math.max(4, (toX - fromX) / 2);
+        int slackY = Math.max(4, (toY - fromY) / 2);
+        if (cx < gridX || gridCols == 0) fromX -= slackX;
+        if (cx >= gridX + gridCols || gridCols == 0) toX += slackX;
+        if (cy < gridY || gridRows == 0) fromY -= slackY;
+        if (cy >= gridY + gridRows || gridRows == 0) toY += slackY;
+
+        int cols = toX - fromX;
+        int rows = toY - fromY;
+        Cell[] resized = new Cell[cols * rows];
+
+        for (int row = 0; row < gridRows; row++) {
+            for (int col = 0; col < gridCols; col++) {
+                Cell cell = grid[row * gridCols + col];
+                if (cell != null) {
+                    resized[(row + gridY - fromY) * cols + (col + gridX - fromX)] = cell;
+                }
+            }
+        }
+
+        grid = resized;
+        gridX = fromX;
+        gridY = fromY;
+        gridCols = cols;
+        gridRows = rows;
+    }
+}
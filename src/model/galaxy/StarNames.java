@@ -24,4 +24,8 @@ public class StarNames {
             "Wezen", "Zaurak", "Zosma"
     };
 
+//    Nazwa katalogowa dla map większych niż lista nazw własnych
+    public static String catalogName(int number) {
+        return "HD " + number;
+    }
 }
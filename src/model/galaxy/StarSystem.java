@@ -1,10 +1,12 @@
 package model.galaxy;
 
 import model.*;
+import model.buildings.BuildingType;
 import model.buildings.SpaceInstallation;
 import model.orbits.AsteroidField;
 import model.orbits.GasGiant;
 import model.orbits.OrbitSlot;
+import model.orbits.planets.Planet;
 import model.ships.Fleet;
 import model.ships.ShipType;
 import model.tech.ResearchManager;
@@ -18,6 +20,10 @@ public class StarSystem {
     private int x;
     private int y;
 
+    // Ustawiane przy dodaniu do galaktyki - id to indeks na liście systemów
+    private Galaxy galaxy;
+    private int id = -1;
+
     private List<StarSystem> neighbors = new ArrayList<>();
     private List<OrbitSlot> orbits = new ArrayList<>();
     private List<Fleet> fleets = new ArrayList<>();
@@ -36,6 +42,18 @@ public class StarSystem {
 
     public void addOrbit(OrbitSlot orbit) {
         orbits.add(orbit);
+        attachPlanet(orbit);
+    }
+
+    public void setOrbit(int position, OrbitSlot orbit) {
+        orbits.set(position, orbit);
+        attachPlanet(orbit);
+    }
+
+    private void attachPlanet(OrbitSlot orbit) {
+        if (orbit.getObject() instanceof Planet planet) {
+            planet.setSystem(this);
+        }
     }
 
 
@@ -43,6 +61,9 @@ public class StarSystem {
         if (system == null || system == this) return;
         if (!neighbors.contains(system)) {
             neighbors.add(system);
+            if (galaxy != null) {
+                galaxy.invalidateLanes();
+            }
         }
     }
 
@@ -65,6 +86,15 @@ public class StarSystem {
 
     public String getName() { return name; }
 
+    public int getId() { return id; }
+
+    public Galaxy getGalaxy() { return galaxy; }
+
+    void attach(Galaxy galaxy, int id) {
+        this.galaxy = galaxy;
+        this.id = id;
+    }
+
     public List<Fleet> getFleets() {
         return fleets;
     }
@@ -72,11 +102,24 @@ public class StarSystem {
     public void addFleet(Fleet fleet) {
         if (!fleets.contains(fleet)) {
             fleets.add(fleet);
+            if (galaxy != null) {
+                galaxy.fireFleetAdded(this, fleet);
+            }
         }
     }
 
     public void removeFleet(Fleet fleet) {
-        fleets.remove(fleet);
+        if (fleets.remove(fleet) && galaxy != null) {
+            galaxy.fireFleetRemoved(this, fleet);
+        }
+    }
+
+    public void removeEmptyFleets() {
+        for (Fleet fleet : new ArrayList<>(fleets)) {
+            if (fleet.isEmpty()) {
+                removeFleet(fleet);
+            }
+        }
     }
 
     public Fleet getPlayerFleet() {
@@ -90,7 +133,7 @@ public class StarSystem {
         Fleet fleet = getPlayerFleet();
         if (fleet == null) {
             fleet = new Fleet(this);
-            fleets.add(fleet);
+            addFleet(fleet);
         }
         return fleet;
     }
@@ -101,6 +144,14 @@ public class StarSystem {
 
     public void setBattleStation(SpaceInstallation battleStation) {
         this.battleStation = battleStation;
+        notifyInstallationChanged();
+    }
+
+//    Wywoływane po postawieniu instalacji na orbicie - pas asteroid i gazowy gigant nie znają swojego systemu
+    public void notifyInstallationChanged() {
+        if (galaxy != null) {
+            galaxy.fireInstallationChanged(this);
+        }
     }
 
     public boolean hasBattleStation() {
@@ -109,7 +160,7 @@ public class StarSystem {
 
     public boolean canBuildBattleStation(Fleet fleet, ResearchManager researchManager) {
         if (hasBattleStation()) return false;
-        if (!researchManager.isUnlocked("POSTERUNEK_BOJOWY")) return false;
+        if (!researchManager.isUnlocked(BuildingType.POSTERUNEK_BOJOWY)) return false;
         if (fleet == null) return false;
         if (fleet.countShipType(ShipType.SPACE_FACTORY) == 0) return false;
 
@@ -137,15 +188,16 @@ public class StarSystem {
         return true;
     }
 
-    public int getTotalCreditsBonus() {
+//    Premie liczone tylko z instalacji należących do danego właściciela
+    public int getTotalCreditsBonus(Enemy owner) {
         int bonus = 0;
         for (OrbitSlot orbit : orbits) {
             if (orbit.getObject() instanceof AsteroidField asteroid) {
-                if (asteroid.hasInstallation()) {
+                if (asteroid.hasInstallation() && asteroid.getInstallation().getOwner() == owner) {
                     bonus += asteroid.getInstallation().getType().getCreditsBonus();
                 }
             } else if (orbit.getObject() instanceof GasGiant giant) {
-                if (giant.hasInstallation()) {
+                if (giant.hasInstallation() && giant.getInstallation().getOwner() == owner) {
                     bonus += giant.getInstallation().getType().getCreditsBonus();
                 }
             }
@@ -153,11 +205,11 @@ public class StarSystem {
         return bonus;
     }
 
-    public int getTotalResearchBonus() {
+    public int getTotalResearchBonus(Enemy owner) {
         int bonus = 0;
         for (OrbitSlot orbit : orbits) {
             if (orbit.getObject() instanceof AsteroidField asteroid) {
-                if (asteroid.hasInstallation()) {
+                if (asteroid.hasInstallation() && asteroid.getInstallation().getOwner() == owner) {
                     bonus += asteroid.getInstallation().getType().getResearchBonus();
                 }
             }
@@ -15,9 +15,12 @@ import model.ships.ShipType;
 import model.tech.ResearchManager;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
 
 public class Planet implements OrbitObject {
 
@@ -28,11 +31,29 @@ public class Planet implements OrbitObject {
     private Enemy owner;
     private Enemy originalOwner;
 
+    // System, w którym leży planeta - ustawiany przy dodaniu orbity
+    private StarSystem system;
+
     private PlanetAttribute attribute;
     private PlanetSize size;
     private PlanetRichness richness;
 
     private final List<Building> buildings = new ArrayList<>();
+    private final List<Building> buildingsView = Collections.unmodifiableList(buildings);
+    private final Map<BuildingType, Integer> buildingCounts = new EnumMap<>(BuildingType.class);
+
+    // Sumy premii z budynków i cech planety - przeliczane tylko przy dodaniu budynku,
+    // więc zapytania o wydobycie to kilka mnożeń zamiast przeglądania listy budynków
+    private int populationCapacityBonus;
+    private int passiveFood;
+    private int foodPerCapita;
+    private int passiveProduction;
+    private int productionPerCapita;
+    private int passiveResearch;
+    private int researchPerCapita;
+    private int passiveCredits;
+    private int creditsPerTotalPopulation;
+    private int buildingMaintenance;
 
     private static final int MAX_QUEUE = 5;
     private final List<ProductionOrder> productionQueue = new ArrayList<>();
@@ -53,37 +74,102 @@ public class Planet implements OrbitObject {
 
     public static final int CREDITS_PER_PRODUCTION = 2;
 
-    public Planet(PlanetType type) {
+    public Planet(PlanetType type, SplittableRandom random) {
         this.type = type;
         this.habitable = type.isHabitable();
         this.colonized = false;
-        this.hasMoon = habitable && Math.random() < 0.55;
+        this.hasMoon = habitable && random.nextDouble() < 0.55;
 
-        this.size = randomSize();
-        this.richness = randomRichness();
-        this.attribute = randomAttribute();
+        this.size = randomSize(random);
+        this.richness = randomRichness(random);
+        this.attribute = randomAttribute(random);
         this.owner = null;
         this.originalOwner = null;
+
+        recalculateYields();
+    }
+
+//    Planeta odtwarzana z zapisu gry - cechy podane wprost zamiast losowania
+    public Planet(PlanetType type, PlanetSize size, PlanetRichness richness, PlanetAttribute attribute, boolean hasMoon) {
+        this.type = type;
+        this.habitable = type.isHabitable();
+        this.hasMoon = hasMoon;
+        this.size = size;
+        this.richness = richness;
+        this.attribute = attribute;
+
+        recalculateYields();
+    }
+
+//    Stan kolonii z zapisu gry - bez powiadomień, galaktyka nie ma jeszcze słuchaczy
+    public void restoreState(boolean colonized, Enemy owner, Enemy originalOwner, int totalPopulation, int maxPopulation,
+                             int onFood, int onProduction, int onResearch, double foodAccumulated) {
+        this.colonized = colonized;
+        this.owner = owner;
+        this.originalOwner = originalOwner;
+        this.totalPopulation = totalPopulation;
+        this.maxPopulation = maxPopulation;
+        this.populationOnFood = onFood;
+        this.populationOnProduction = onProduction;
+        this.populationOnResearch = onResearch;
+        this.foodAccumulated = foodAccumulated;
+    }
+
+    private void recalculateYields() {
+        populationCapacityBonus = 0;
+        passiveFood = 0;
+        foodPerCapita = 0;
+        passiveProduction = 0;
+        productionPerCapita = 0;
+        passiveResearch = 0;
+        researchPerCapita = 0;
+        passiveCredits = 0;
+        creditsPerTotalPopulation = 1;
+        buildingMaintenance = 0;
+
+        for (Building b : buildings) {
+            BuildingType t = b.getType();
+            populationCapacityBonus += t.getPopulationCapacityBonus();
+            passiveFood += t.getFoodBonus();
+            foodPerCapita += t.getFoodPerCapita();
+            passiveProduction += t.getProductionBonus();
+            productionPerCapita += t.getProductionPerCapita();
+            passiveResearch += t.getResearchBonus();
+            researchPerCapita += t.getResearchPerCapita();
+            passiveCredits += t.getCreditsBonus();
+            creditsPerTotalPopulation += t.getCreditsPerTotalPopulation();
+            buildingMaintenance += t.getMaintenanceCost();
+        }
+
+        if (attribute != null) {
+            passiveFood += attribute.getFoodBonus();
+            passiveResearch += attribute.getResearchBonus();
+            passiveCredits += attribute.getCreditsBonus();
+        }
+
+        if (richness != null) {
+            passiveProduction += richness.getProductionBonus();
+        }
     }
 
-    private PlanetSize randomSize() {
-        double r = Math.random();
+    private PlanetSize randomSize(SplittableRandom random) {
+        double r = random.nextDouble();
         if (r < 0.15) return PlanetSize.SMALL;
         if (r < 0.60) return PlanetSize.MEDIUM;
         if (r < 0.90) return PlanetSize.LARGE;
         return PlanetSize.HUGE;
     }
 
-    private PlanetRichness randomRichness() {
-        double r = Math.random();
+    private PlanetRichness randomRichness(SplittableRandom random) {
+        double r = random.nextDouble();
         if (r < 0.20) return PlanetRichness.POOR;
         if (r < 0.70) return PlanetRichness.NORMAL;
         if (r < 0.95) return PlanetRichness.RICH;
         return PlanetRichness.ULTRA_RICH;
     }
 
-    private PlanetAttribute randomAttribute() {
-        double r = Math.random();
+    private PlanetAttribute randomAttribute(SplittableRandom random) {
+        double r = random.nextDouble();
         if (r < 0.60) return PlanetAttribute.NONE;
         if (r < 0.75) return PlanetAttribute.GOLD_DEPOSITS;
         if (r < 0.90) return PlanetAttribute.ANCIENT_ARTIFACTS;
@@ -132,7 +218,29 @@ public class Planet implements OrbitObject {
     }
 
     public void setOwner(Enemy owner) {
+        if (this.owner == owner) return;
         this.owner = owner;
+        notifyColonyChanged();
+    }
+
+    public StarSystem getSystem() {
+        return system;
+    }
+
+    public void setSystem(StarSystem system) {
+        this.system = system;
+    }
+
+    private void notifyColonyChanged() {
+        if (system != null && system.getGalaxy() != null) {
+            system.getGalaxy().fireColonyChanged(system, this);
+        }
+    }
+
+    private void notifyPlanetChanged() {
+        if (colonized && system != null && system.getGalaxy() != null) {
+            system.getGalaxy().firePlanetChanged(system, this);
+        }
     }
 
     public Enemy getOriginalOwner() {
@@ -147,6 +255,7 @@ public class Planet implements OrbitObject {
         populationOnProduction = 2;
         populationOnResearch = 1;
         originalOwner = null;
+        notifyColonyChanged();
     }
 
     public void colonizeHomePlanetForAI(Enemy enemy) {
@@ -158,6 +267,7 @@ public class Planet implements OrbitObject {
         populationOnFood = 2;
         populationOnProduction = 2;
         populationOnResearch = 1;
+        notifyColonyChanged();
     }
 
     private int calculateMaxPopulation() {
@@ -181,14 +291,7 @@ public class Planet implements OrbitObject {
     public void colonize(Fleet fleet) {
         if (!canColonize(fleet)) return;
 
-        Ship colonyShip = fleet.getShips().stream()
-                .filter(s -> s.getType() == ShipType.COLONY_SHIP)
-                .findFirst()
-                .orElse(null);
-
-        if (colonyShip != null) {
-            fleet.removeShip(colonyShip);
-        }
+        fleet.removeShip(ShipType.COLONY_SHIP);
 
         colonized = true;
         owner = fleet.getOwner();
@@ -199,6 +302,7 @@ public class Planet implements OrbitObject {
         populationOnFood = 1;
         populationOnProduction = 0;
         populationOnResearch = 0;
+        notifyColonyChanged();
     }
 
     public int getTotalPopulation() {
@@ -206,11 +310,12 @@ public class Planet implements OrbitObject {
     }
 
     public int getMaxPopulation() {
-        int max = maxPopulation;
-        for (Building b : buildings) {
-            max += b.getType().getPopulationCapacityBonus();
-        }
-        return max;
+        return maxPopulation + populationCapacityBonus;
+    }
+
+//    Pojemność bez premii z budynków
+    public int getBaseMaxPopulation() {
+        return maxPopulation;
     }
 
     public int getUnassignedPopulation() {
@@ -232,16 +337,19 @@ public class Planet implements OrbitObject {
     public void setPopulationOnFood(int value) {
         populationOnFood = Math.max(0, Math.min(value, totalPopulation));
         rebalancePopulation();
+        notifyPlanetChanged();
     }
 
     public void setPopulationOnProduction(int value) {
         populationOnProduction = Math.max(0, Math.min(value, totalPopulation));
         rebalancePopulation();
+        notifyPlanetChanged();
     }
 
     public void setPopulationOnResearch(int value) {
         populationOnResearch = Math.max(0, Math.min(value, totalPopulation));
         rebalancePopulation();
+        notifyPlanetChanged();
     }
 
 //    Zmniejsza przydziały populacji jeśli suma przekracza ogólną populację planety
@@ -256,20 +364,7 @@ public class Planet implements OrbitObject {
     }
 
     public int getFoodProduction() {
-        int baseProduction = populationOnFood;
-        int passive = 0;
-        int perCapita = 0;
-
-        for (Building b : buildings) {
-            passive += b.getType().getFoodBonus();
-            perCapita += b.getType().getFoodPerCapita();
-        }
-
-        if (attribute != null) {
-            passive += attribute.getFoodBonus();
-        }
-
-        return baseProduction + passive + (populationOnFood * perCapita);
+        return populationOnFood + passiveFood + (populationOnFood * foodPerCapita);
     }
 
     public double getNetFoodProduction() {
@@ -279,72 +374,60 @@ public class Planet implements OrbitObject {
     }
 
     public int getProduction() {
-        int baseProduction = populationOnProduction;
-        int passive = 0;
-        int perCapita = 0;
-
-        for (Building b : buildings) {
-            passive += b.getType().getProductionBonus();
-            perCapita += b.getType().getProductionPerCapita();
-        }
-
-        if (richness != null) {
-            passive += richness.getProductionBonus();
-        }
-
-        return baseProduction + passive + (populationOnProduction * perCapita);
+        return populationOnProduction + passiveProduction + (populationOnProduction * productionPerCapita);
     }
 
     public int getResearch() {
-        int baseProduction = populationOnResearch;
-        int passive = 0;
-        int perCapita = 0;
+        return populationOnResearch + passiveResearch + (populationOnResearch * researchPerCapita);
+    }
 
-        for (Building b : buildings) {
-            passive += b.getType().getResearchBonus();
-            perCapita += b.getType().getResearchPerCapita();
-        }
+    public int getCredits() {
+        return passiveCredits + (totalPopulation * creditsPerTotalPopulation);
+    }
 
-        if (attribute != null) {
-            passive += attribute.getResearchBonus();
-        }
+//    Lista tylko do odczytu - budynki dodaje się przez addBuilding, żeby sumy premii były aktualne
+    public List<Building> getBuildings() {
+        return buildingsView;
+    }
 
-        return baseProduction + passive + (populationOnResearch * perCapita);
+    public void addBuilding(BuildingType type) {
+        buildings.add(new Building(type));
+        buildingCounts.merge(type, 1, Integer::sum);
+        recalculateYields();
+        notifyPlanetChanged();
     }
 
-    public int getCredits() {
-        int passive = 0;
-        int perTotalPopulation = 1;
+    public List<ProductionOrder> getBuildQueue() {
+        return productionQueue;
+    }
 
-        for (Building b : buildings) {
-            passive += b.getType().getCreditsBonus();
-            perTotalPopulation += b.getType().getCreditsPerTotalPopulation();
-        }
+    public boolean hasSavedProgress() {
+        return !savedBuildingProgress.isEmpty() || !savedShipProgress.isEmpty();
+    }
 
-        if (attribute != null) {
-            passive += attribute.getCreditsBonus();
-        }
+//    Postęp zapamiętany dla zamówień usuniętych z kolejki (-1 gdy brak)
+    public int getSavedProgress(BuildingType type) {
+        return savedBuildingProgress.getOrDefault(type, -1);
+    }
 
-        return passive + (totalPopulation * perTotalPopulation);
+    public int getSavedProgress(ShipType type) {
+        return savedShipProgress.getOrDefault(type, -1);
     }
 
-    public List<Building> getBuildings() {
-        return buildings;
+    public void restoreSavedProgress(BuildingType type, int remainingCost) {
+        savedBuildingProgress.put(type, remainingCost);
     }
 
-    public List<ProductionOrder> getBuildQueue() {
-        return productionQueue;
+    public void restoreSavedProgress(ShipType type, int remainingCost) {
+        savedShipProgress.put(type, remainingCost);
     }
 
     public boolean hasBuilding(BuildingType type) {
-        return buildings.stream()
-                .anyMatch(b -> b.getType() == type);
+        return buildingCounts.containsKey(type);
     }
 
     public int countBuilding(BuildingType type) {
-        return (int) buildings.stream()
-                .filter(b -> b.getType() == type)
-                .count();
+        return buildingCounts.getOrDefault(type, 0);
     }
 
     public boolean isBuildingInQueue(BuildingType type) {
@@ -396,6 +479,7 @@ public class Planet implements OrbitObject {
         order.setRemainingCost(savedCost);
 
         productionQueue.add(order);
+        notifyPlanetChanged();
     }
 
     public void addShipToQueue(ShipType type, ResearchManager researchManager) {
@@ -410,6 +494,7 @@ public class Planet implements OrbitObject {
         order.setRemainingCost(savedCost);
 
         productionQueue.add(order);
+        notifyPlanetChanged();
     }
 
     public void removeFromQueue(int index) {
@@ -426,6 +511,7 @@ public class Planet implements OrbitObject {
             }
 
             productionQueue.remove(index);
+            notifyPlanetChanged();
         }
     }
 
@@ -461,7 +547,7 @@ public class Planet implements OrbitObject {
         productionQueue.remove(0);
 
         if (current.getProductionType() == ProductionType.BUILDING) {
-            buildings.add(new Building(current.getBuildingType()));
+            addBuilding(current.getBuildingType());
             savedBuildingProgress.remove(current.getBuildingType());
         } else {
             savedShipProgress.remove(current.getShipType());
@@ -472,6 +558,7 @@ public class Planet implements OrbitObject {
             }
         }
 
+        notifyPlanetChanged();
         return true;
     }
 
@@ -483,6 +570,12 @@ public class Planet implements OrbitObject {
     public Ship processTurn(StarSystem system) {
         if (!colonized) return null;
 
+        Ship ship = advanceTurn();
+        notifyPlanetChanged();
+        return ship;
+    }
+
+    private Ship advanceTurn() {
         double netFoodProduction = getNetFoodProduction();
 
         // System głodu - przy ujemnej produkcji żywności populacja umiera
@@ -523,7 +616,7 @@ public class Planet implements OrbitObject {
             productionQueue.remove(0);
 
             if (current.getProductionType() == ProductionType.BUILDING) {
-                buildings.add(new Building(current.getBuildingType()));
+                addBuilding(current.getBuildingType());
                 savedBuildingProgress.remove(current.getBuildingType());
                 return null;
             } else {
@@ -567,11 +660,7 @@ public class Planet implements OrbitObject {
     }
 
     public int getMaintenanceCost() {
-        int cost = 0;
-
-        for (Building building : buildings) {
-            cost += building.getType().getMaintenanceCost();
-        }
+        int cost = buildingMaintenance;
 
         // Kara za okupowaną planetę (nie należy do oryginalnego właściciela)
         if (originalOwner == null) {
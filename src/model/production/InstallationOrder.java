@@ -26,6 +26,10 @@ public class InstallationOrder {
         return remainingCost;
     }
 
+    public void setRemainingCost(int cost) {
+        this.remainingCost = cost;
+    }
+
     public void progress(int production) {
         remainingCost -= production;
     }
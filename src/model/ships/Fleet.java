@@ -11,11 +11,48 @@ import model.orbits.OrbitObject;
 import model.production.InstallationOrder;
 import model.tech.ResearchManager;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Fleet {
-    private final List<Ship> ships = new ArrayList<>();
+    private static final ShipType[] TYPES = ShipType.values();
+
+    // Skład floty jako liczba statków każdego typu (indeks = ordinal) - statki tego samego typu są nierozróżnialne
+    private final int[] counts = new int[TYPES.length];
+    private int shipCount;
+    private int maintenanceCost;
+
+    // Siła floty zapamiętana dla ostatnio użytego poziomu premii z badań
+    private int cachedAttackBonus = -1;
+    private int cachedAttack;
+    private int cachedDefenseBonus = -1;
+    private int cachedDefense;
+
+    // Widok listy dla interfejsu - jeden wspólny obiekt Ship na typ
+    private final Ship[] shipsOfType = new Ship[TYPES.length];
+    private final List<Ship> shipsView = new AbstractList<>() {
+        @Override
+        public Ship get(int index) {
+            if (index < 0 || index >= shipCount) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            for (ShipType type : TYPES) {
+                if (index < counts[type.ordinal()]) {
+                    return shipOf(type);
+                }
+                index -= counts[type.ordinal()];
+            }
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        @Override
+        public int size() {
+            return shipCount;
+        }
+    };
+
     private StarSystem location;
     private Enemy owner;
     private List<StarSystem> route = null;
@@ -37,18 +74,75 @@ public class Fleet {
 
     public void setOwner(Enemy owner) {
         this.owner = owner;
+        Arrays.fill(shipsOfType, null);
     }
 
     public void addShip(Ship ship) {
-        ships.add(ship);
+        addShips(ship.getType(), 1);
+    }
+
+    public void addShips(ShipType type, int count) {
+        if (count <= 0) return;
+        counts[type.ordinal()] += count;
+        compositionChanged(type, count);
     }
 
     public void removeShip(Ship ship) {
-        ships.remove(ship);
+        removeShip(ship.getType());
+    }
+
+    public boolean removeShip(ShipType type) {
+        if (counts[type.ordinal()] == 0) return false;
+        counts[type.ordinal()]--;
+        compositionChanged(type, -1);
+        return true;
+    }
+
+//    Usuwa do count statków danego typu jednym powiadomieniem, zwraca liczbę usuniętych
+    public int removeShips(ShipType type, int count) {
+        int removed = Math.min(count, counts[type.ordinal()]);
+        if (removed <= 0) return 0;
+        counts[type.ordinal()] -= removed;
+        compositionChanged(type, -removed);
+        return removed;
+    }
+
+    public void clearShips() {
+        if (shipCount == 0) return;
+        Arrays.fill(counts, 0);
+        shipCount = 0;
+        maintenanceCost = 0;
+        cachedAttackBonus = -1;
+        cachedDefenseBonus = -1;
+        notifyChanged();
+    }
+
+    private void compositionChanged(ShipType type, int delta) {
+        shipCount += delta;
+        maintenanceCost += delta * type.getMaintenanceCost();
+        cachedAttackBonus = -1;
+        cachedDefenseBonus = -1;
+        notifyChanged();
+    }
+
+    private Ship shipOf(ShipType type) {
+        Ship ship = shipsOfType[type.ordinal()];
+        if (ship == null) {
+            ship = new Ship(type, owner);
+            shipsOfType[type.ordinal()] = ship;
+        }
+        return ship;
     }
 
+    private void notifyChanged() {
+        if (location != null && location.getGalaxy() != null) {
+            location.getGalaxy().fireFleetChanged(this);
+        }
+    }
+
+//    Lista tylko do odczytu, pogrupowana według typu - zmiany przez addShip/removeShip
     public List<Ship> getShips() {
-        return ships;
+        return shipsView;
     }
 
     public StarSystem getLocation() {
@@ -99,6 +193,20 @@ public class Fleet {
         return true;
     }
 
+    public int getCurrentRouteIndex() {
+        return currentRouteIndex;
+    }
+
+//    Trasa i projekt z zapisu gry - bez ponownego szukania ścieżki
+    public void restoreRoute(List<StarSystem> route, int currentRouteIndex) {
+        this.route = route;
+        this.currentRouteIndex = currentRouteIndex;
+    }
+
+    public void restoreProject(InstallationOrder project) {
+        this.currentProject = project;
+    }
+
     public InstallationOrder getCurrentProject() {
         return currentProject;
     }
@@ -131,12 +239,7 @@ public class Fleet {
 
     public void processTurn() {
         if (currentProject != null && !isMoving()) {
-            int production = 0;
-            for (Ship ship : ships) {
-                if (ship.getType() == ShipType.SPACE_FACTORY) {
-                    production += ship.getType().getProductionPerTurn();
-                }
-            }
+            int production = countShipType(ShipType.SPACE_FACTORY) * ShipType.SPACE_FACTORY.getProductionPerTurn();
 
             currentProject.progress(production);
 
@@ -149,8 +252,10 @@ public class Fleet {
                     location.setBattleStation(installation);
                 } else if (target instanceof AsteroidField asteroid) {
                     asteroid.setInstallation(installation);
+                    location.notifyInstallationChanged();
                 } else if (target instanceof GasGiant giant) {
                     giant.setInstallation(installation);
+                    location.notifyInstallationChanged();
                 }
 
                 currentProject = null;
@@ -161,8 +266,8 @@ public class Fleet {
             StarSystem nextSystem = route.get(currentRouteIndex);
 
             location.removeFleet(this);
-            nextSystem.addFleet(this);
             location = nextSystem;
+            nextSystem.addFleet(this);
 
             currentRouteIndex++;
 
@@ -174,29 +279,46 @@ public class Fleet {
     }
 
     public boolean isEmpty() {
-        return ships.isEmpty();
+        return shipCount == 0;
     }
 
     public int getTotalAttack(ResearchManager researchManager) {
-        return ships.stream()
-                .mapToInt(ship -> ship.getAttack(researchManager))
-                .sum();
+        int bonus = researchManager.getShipAttackBonus();
+        if (bonus != cachedAttackBonus) {
+            int total = 0;
+            for (ShipType type : TYPES) {
+                total += counts[type.ordinal()] * type.getEffectiveAttack(researchManager);
+            }
+            cachedAttack = total;
+            cachedAttackBonus = bonus;
+        }
+        return cachedAttack;
     }
 
     public int getTotalDefense(ResearchManager researchManager) {
-        return ships.stream()
-                .mapToInt(ship -> ship.getDefense(researchManager))
-                .sum();
+        int bonus = researchManager.getShipDefenseBonus();
+        if (bonus != cachedDefenseBonus) {
+            int total = 0;
+            for (ShipType type : TYPES) {
+                total += counts[type.ordinal()] * type.getEffectiveDefense(researchManager);
+            }
+            cachedDefense = total;
+            cachedDefenseBonus = bonus;
+        }
+        return cachedDefense;
     }
 
     public int getShipCount() {
-        return ships.size();
+        return shipCount;
     }
 
     public int countShipType(ShipType type) {
-        return (int) ships.stream()
-                .filter(ship -> ship.getType() == type)
-                .count();
+        return counts[type.ordinal()];
+    }
+
+//    Koszt utrzymania wszystkich statków floty na turę
+    public int getMaintenanceCost() {
+        return maintenanceCost;
     }
 
     public List<StarSystem> getRoute() {
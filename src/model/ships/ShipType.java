@@ -146,7 +146,7 @@ public enum ShipType {
 
     public boolean isAvailable(ResearchManager researchManager) {
         if (requiredTech == null) return true;
-        return researchManager.isUnlocked(requiredTech);
+        return researchManager.isUnlocked(this);
     }
 
     public int getEffectiveAttack(ResearchManager researchManager) {
@@ -0,0 +1,43 @@
+package model.tech;
+
+import java.util.Collections;
+import java.util.List;
+
+// Prognoza dojścia do technologii: brakujące wymagania i sama technologia w kolejności badania
+// oraz tura (licząc od bieżącej), w której ukończone zostanie każde z nich.
+public class ResearchForecast {
+
+    public static final int NEVER = -1;
+
+    private final Technology target;
+    private final List<Technology> steps;
+    private final int[] completionTurns;
+
+    ResearchForecast(Technology target, List<Technology> steps, int[] completionTurns) {
+        this.target = target;
+        this.steps = Collections.unmodifiableList(steps);
+        this.completionTurns = completionTurns;
+    }
+
+    public Technology getTarget() {
+        return target;
+    }
+
+//    Pusta lista, jeśli technologia jest już zbadana
+    public List<Technology> getSteps() {
+        return steps;
+    }
+
+//    Tura ukończenia kroku albo NEVER przy zerowym przychodzie badań
+    public int getCompletionTurn(int step) {
+        return completionTurns[step];
+    }
+
+    public int getTurns() {
+        return steps.isEmpty() ? 0 : completionTurns[completionTurns.length - 1];
+    }
+
+    public boolean isReachable() {
+        return getTurns() != NEVER;
+    }
+}
@@ -1,17 +1,29 @@
 package model.tech;
 
+import model.buildings.BuildingType;
+import model.ships.ShipType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class ResearchManager {
-    private final Set<Technology> researchedTechs = new HashSet<>();
+    private final Set<Technology> researchedTechs = EnumSet.noneOf(Technology.class);
+    private long researchedMask = 0;  // te same technologie jako bity TechTree
     private Technology currentResearch = null;
     private int currentProgress = 0;
 
     private final Map<Technology, Integer> savedProgress = new HashMap<>();
 
+    // Odblokowania zbierane przy ukończeniu badania - sprawdzenie dostępności to test jednego bitu
+    private final EnumSet<BuildingType> unlockedBuildings = EnumSet.noneOf(BuildingType.class);
+    private final EnumSet<ShipType> unlockedShips = EnumSet.noneOf(ShipType.class);
+
     private int shipAttackBonus = 0;
     private int shipDefenseBonus = 0;
     private int researchBonusPercent = 0;
@@ -54,6 +66,7 @@ public class ResearchManager {
         if (currentResearch == null) return;
 
         researchedTechs.add(currentResearch);
+        researchedMask |= TechTree.bit(currentResearch);
         applyTechEffects(currentResearch);
 
         savedProgress.remove(currentResearch);
@@ -64,6 +77,9 @@ public class ResearchManager {
 
     private void applyTechEffects(Technology tech) {
         for (TechEffect effect : tech.getEffects()) {
+            unlockedBuildings.addAll(effect.getUnlockedBuildings());
+            unlockedShips.addAll(effect.getUnlockedShips());
+
             switch (effect.getType()) {
                 case SHIP_ATTACK_BONUS -> shipAttackBonus += effect.getValue();
                 case SHIP_DEFENSE_BONUS -> shipDefenseBonus += effect.getValue();
@@ -73,33 +89,105 @@ public class ResearchManager {
     }
 
     public boolean canResearch(Technology tech) {
-        if (isResearched(tech)) return false;
         if (currentResearch == tech) return false;
+        return (researchedMask & TechTree.bit(tech)) == 0
+                && (TechTree.prerequisiteMask(tech) & ~researchedMask) == 0;
+    }
 
-        for (Technology prereq : tech.getPrerequisites()) {
-            if (!isResearched(prereq)) {
-                return false;
-            }
+//    Technologie, które można teraz zacząć badać, w kolejności Technology.values()
+    public List<Technology> getAvailableTechs() {
+        long available = TechTree.availableMask(researchedMask);
+        if (currentResearch != null) {
+            available &= ~TechTree.bit(currentResearch);
         }
-
-        return true;
+        return TechTree.toList(available);
     }
 
     public boolean isResearched(Technology tech) {
-        return researchedTechs.contains(tech);
+        return (researchedMask & TechTree.bit(tech)) != 0;
     }
 
-    public boolean isUnlocked(String buildingOrShipName) {
-        for (Technology tech : researchedTechs) {
+//    Ile tur zajmie zbadanie technologii razem z brakującymi wymaganiami przy stałym przychodzie
+//    punktów badań. Liczy tak jak addResearchPoints: premia z ukończonych po drodze technologii
+//    działa od następnego kroku, nadwyżka punktów przepada, a bieżące badanie idzie pierwsze.
+    public ResearchForecast forecast(Technology target, int pointsPerTurn) {
+        long missing = (TechTree.closureMask(target) | TechTree.bit(target)) & ~researchedMask;
+
+        List<Technology> steps = new ArrayList<>(Long.bitCount(missing));
+        if (currentResearch != null && (missing & TechTree.bit(currentResearch)) != 0) {
+            steps.add(currentResearch);
+            missing &= ~TechTree.bit(currentResearch);
+        }
+        steps.addAll(TechTree.inResearchOrder(missing));
+
+        int[] completionTurns = new int[steps.size()];
+        int bonusPercent = researchBonusPercent;
+        int turns = 0;
+
+        for (int i = 0; i < steps.size(); i++) {
+            Technology tech = steps.get(i);
+            int effectivePoints = pointsPerTurn;
+            if (bonusPercent > 0) {
+                effectivePoints = pointsPerTurn + (pointsPerTurn * bonusPercent / 100);
+            }
+
+            if (effectivePoints <= 0) {
+                Arrays.fill(completionTurns, i, completionTurns.length, ResearchForecast.NEVER);
+                break;
+            }
+
+            int progress = tech == currentResearch ? currentProgress : getSavedProgress(tech);
+            int remaining = Math.max(tech.getCost() - progress, 1);
+            turns += (remaining + effectivePoints - 1) / effectivePoints;
+            completionTurns[i] = turns;
+
             for (TechEffect effect : tech.getEffects()) {
-                if ((effect.getType() == TechEffectType.UNLOCK_BUILDING ||
-                        effect.getType() == TechEffectType.UNLOCK_SHIP) &&
-                        buildingOrShipName.equals(effect.getStringValue())) {
-                    return true;
+                if (effect.getType() == TechEffectType.RESEARCH_BONUS) {
+                    bonusPercent += effect.getValue();
                 }
             }
         }
-        return false;
+
+        return new ResearchForecast(target, steps, completionTurns);
+    }
+
+    public boolean isUnlocked(BuildingType building) {
+        return unlockedBuildings.contains(building);
+    }
+
+    public boolean isUnlocked(ShipType ship) {
+        return unlockedShips.contains(ship);
+    }
+
+//    Stan z zapisu gry - premie wyliczane ponownie z efektów zbadanych technologii
+    public void restore(Set<Technology> researched, Technology current, int progress, Map<Technology, Integer> saved) {
+        researchedTechs.clear();
+        researchedMask = 0;
+        savedProgress.clear();
+        unlockedBuildings.clear();
+        unlockedShips.clear();
+        shipAttackBonus = 0;
+        shipDefenseBonus = 0;
+        researchBonusPercent = 0;
+
+        for (Technology tech : researched) {
+            researchedTechs.add(tech);
+            researchedMask |= TechTree.bit(tech);
+            applyTechEffects(tech);
+        }
+        savedProgress.putAll(saved);
+
+        currentResearch = current;
+        currentProgress = progress;
+    }
+
+    public Set<Technology> getResearchedTechs() {
+        return Collections.unmodifiableSet(researchedTechs);
+    }
+
+//    Postęp przerwanego badania albo 0
+    public int getSavedProgress(Technology tech) {
+        return savedProgress.getOrDefault(tech, 0);
     }
 
     public Technology getCurrentResearch() {
@@ -1,20 +1,50 @@
 package model.tech;
 
+import model.buildings.BuildingType;
+import model.ships.ShipType;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 public class TechEffect {
     private final TechEffectType type;
     private final int value;
     private final String stringValue;
 
+    // Nazwa z efektu odblokowania zamieniona raz na typy budynków i statków o tym wymaganiu
+    private final Set<BuildingType> unlockedBuildings;
+    private final Set<ShipType> unlockedShips;
+
     public TechEffect(TechEffectType type, int value) {
         this.type = type;
         this.value = value;
         this.stringValue = null;
+        this.unlockedBuildings = Collections.emptySet();
+        this.unlockedShips = Collections.emptySet();
     }
 
     public TechEffect(TechEffectType type, String stringValue) {
         this.type = type;
         this.value = 0;
         this.stringValue = stringValue;
+
+        EnumSet<BuildingType> buildings = EnumSet.noneOf(BuildingType.class);
+        EnumSet<ShipType> ships = EnumSet.noneOf(ShipType.class);
+        if (type == TechEffectType.UNLOCK_BUILDING || type == TechEffectType.UNLOCK_SHIP) {
+            for (BuildingType building : BuildingType.values()) {
+                if (stringValue.equals(building.getTechRequirement())) {
+                    buildings.add(building);
+                }
+            }
+            for (ShipType ship : ShipType.values()) {
+                if (stringValue.equals(ship.getRequiredTech())) {
+                    ships.add(ship);
+                }
+            }
+        }
+        this.unlockedBuildings = Collections.unmodifiableSet(buildings);
+        this.unlockedShips = Collections.unmodifiableSet(ships);
     }
 
     public TechEffectType getType() {
@@ -29,6 +59,14 @@ public class TechEffect {
         return stringValue;
     }
 
+    public Set<BuildingType> getUnlockedBuildings() {
+        return unlockedBuildings;
+    }
+
+    public Set<ShipType> getUnlockedShips() {
+        return unlockedShips;
+    }
+
     public String getDescription() {
         return switch (type) {
             case UNLOCK_BUILDING -> "Odblokowuje: " + stringValue;
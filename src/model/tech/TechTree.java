@@ -0,0 +1,104 @@
+package model.tech;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Drzewo technologii policzone raz przy ładowaniu klasy. Technologia to bit (ordinal) w longu,
+// więc wymagania bezpośrednie i wszystkie przechodnie są maskami, a sprawdzenie dostępności
+// to jedna operacja bitowa zamiast przechodzenia list wymagań.
+public final class TechTree {
+
+    private static final Technology[] TECHNOLOGIES = Technology.values();
+
+    private static final long[] PREREQUISITES = new long[TECHNOLOGIES.length];
+    private static final long[] CLOSURE = new long[TECHNOLOGIES.length];
+
+    // Każda technologia stoi za wszystkimi swoimi wymaganiami, przy remisie decyduje ordinal
+    private static final Technology[] ORDER = new Technology[TECHNOLOGIES.length];
+
+    static {
+        if (TECHNOLOGIES.length > Long.SIZE) {
+            throw new IllegalStateException("Maska technologii mieści najwyżej " + Long.SIZE + " pozycji");
+        }
+
+        for (Technology tech : TECHNOLOGIES) {
+            for (Technology prereq : tech.getPrerequisites()) {
+                PREREQUISITES[tech.ordinal()] |= bit(prereq);
+            }
+        }
+
+        long placed = 0;
+        int count = 0;
+        while (count < TECHNOLOGIES.length) {
+            int before = count;
+            for (Technology tech : TECHNOLOGIES) {
+                int i = tech.ordinal();
+                if ((placed & bit(tech)) != 0 || (PREREQUISITES[i] & ~placed) != 0) continue;
+
+                long closure = PREREQUISITES[i];
+                for (Technology prereq : tech.getPrerequisites()) {
+                    closure |= CLOSURE[prereq.ordinal()];
+                }
+                CLOSURE[i] = closure;
+
+                ORDER[count++] = tech;
+                placed |= bit(tech);
+            }
+            if (count == before) {
+                throw new IllegalStateException("Cykl w wymaganiach technologii");
+            }
+        }
+    }
+
+    private TechTree() {
+    }
+
+    public static long bit(Technology tech) {
+        return 1L << tech.ordinal();
+    }
+
+//    Bezpośrednie wymagania technologii
+    public static long prerequisiteMask(Technology tech) {
+        return PREREQUISITES[tech.ordinal()];
+    }
+
+//    Wszystkie technologie, które trzeba zbadać wcześniej (bez samej technologii)
+    public static long closureMask(Technology tech) {
+        return CLOSURE[tech.ordinal()];
+    }
+
+//    Niezbadane technologie, których wszystkie wymagania są w masce researched
+    public static long availableMask(long researched) {
+        long available = 0;
+        for (int i = 0; i < TECHNOLOGIES.length; i++) {
+            if ((researched & (1L << i)) == 0 && (PREREQUISITES[i] & ~researched) == 0) {
+                available |= 1L << i;
+            }
+        }
+        return available;
+    }
+
+    public static List<Technology> topologicalOrder() {
+        return List.of(ORDER);
+    }
+
+//    Technologie z maski w kolejności topologicznej - tak, jak da się je kolejno badać
+    public static List<Technology> inResearchOrder(long mask) {
+        List<Technology> result = new ArrayList<>(Long.bitCount(mask));
+        for (Technology tech : ORDER) {
+            if ((mask & bit(tech)) != 0) {
+                result.add(tech);
+            }
+        }
+        return result;
+    }
+
+//    Technologie z maski w kolejności deklaracji (jak Technology.values())
+    public static List<Technology> toList(long mask) {
+        List<Technology> result = new ArrayList<>(Long.bitCount(mask));
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            result.add(TECHNOLOGIES[Long.numberOfTrailingZeros(rest)]);
+        }
+        return result;
+    }
+}
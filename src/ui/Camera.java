@@ -74,6 +74,14 @@ public class Camera {
         return (int) ((worldY - y) * zoom);
     }
 
+    public double screenToWorldX(int screenX) {
+        return x + screenX / zoom;
+    }
+
+    public double screenToWorldY(int screenY) {
+        return y + screenY / zoom;
+    }
+
     public void zoomAt(double amount, int mouseX, int mouseY) {
         // Punkt kursora w świecie przed zoomem
         double worldXBefore = x + mouseX / zoom;
@@ -1,6 +1,7 @@
 package view;
 
 import controller.Game;
+import controller.GameCommand;
 import model.buildings.BuildingType;
 import model.orbits.planets.Planet;
 import model.production.ProductionType;
@@ -58,7 +59,7 @@ public class BuildDialog extends JDialog {
             btn.setHorizontalAlignment(SwingConstants.LEFT);
 
             btn.addActionListener(e -> {
-                planet.addBuildingToQueue(type, researchManager);
+                game.execute(GameCommand.queueBuilding(planet, type));
                 dispose();
                 onClose.run();
             });
@@ -130,7 +131,7 @@ public class BuildDialog extends JDialog {
                     return;
                 }
 
-                planet.addShipToQueue(type, researchManager);
+                game.execute(GameCommand.queueShip(planet, type));
                 dispose();
                 onClose.run();
             });
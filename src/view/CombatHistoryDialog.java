@@ -0,0 +1,122 @@
+package view;
+
+import controller.CombatHistory;
+import controller.CombatRecord;
+import controller.Game;
+import model.galaxy.Galaxy;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.util.List;
+import java.util.Locale;
+
+// Walki z ostatnich tur z filtrem po nazwie systemu. Raport wybranej walki formatowany przy wyborze.
+public class CombatHistoryDialog extends JDialog {
+
+    private final Game game;
+    private final DefaultListModel<CombatRecord> records = new DefaultListModel<>();
+    private final JList<CombatRecord> recordList = new JList<>(records);
+    private final JTextArea reportArea = new JTextArea();
+    private final JTextField filterField = new JTextField(20);
+    private final JLabel countLabel = new JLabel();
+
+    public CombatHistoryDialog(MainWindow parent, Game game) {
+        super(parent, "Historia walk", true);
+        this.game = game;
+
+        setLayout(new BorderLayout());
+        setSize(800, 500);
+        setLocationRelativeTo(parent);
+
+        buildUI();
+        refreshList();
+    }
+
+    private void buildUI() {
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
+        topPanel.setBackground(new Color(40, 40, 40));
+
+        JLabel filterLabel = new JLabel("System:");
+        filterLabel.setForeground(Color.WHITE);
+        topPanel.add(filterLabel);
+        topPanel.add(filterField);
+
+        countLabel.setForeground(Color.LIGHT_GRAY);
+        topPanel.add(countLabel);
+        add(topPanel, BorderLayout.NORTH);
+
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                refreshList();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                refreshList();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                refreshList();
+            }
+        });
+
+        Galaxy galaxy = game.getGalaxy();
+        recordList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        recordList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                CombatRecord record = (CombatRecord) value;
+                String text = "Tura " + record.getTurn() + ": " + galaxy.getSystem(record.getSystemId()).getName() +
+                        " - " + outcome(record);
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        recordList.addListSelectionListener(e -> {
+            CombatRecord selected = recordList.getSelectedValue();
+            reportArea.setText(selected != null ? selected.format(galaxy) : "");
+            reportArea.setCaretPosition(0);
+        });
+
+        reportArea.setEditable(false);
+        reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                new JScrollPane(recordList), new JScrollPane(reportArea));
+        split.setDividerLocation(320);
+        add(split, BorderLayout.CENTER);
+
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton closeButton = new JButton("Zamknij");
+        closeButton.addActionListener(e -> dispose());
+        bottomPanel.add(closeButton);
+        add(bottomPanel, BorderLayout.SOUTH);
+    }
+
+    private void refreshList() {
+        Galaxy galaxy = game.getGalaxy();
+        String filter = filterField.getText().trim().toLowerCase(Locale.ROOT);
+
+        CombatHistory history = game.getCombatHistory();
+        List<CombatRecord> found = history.find(record -> game.isKnownToPlayer(record) && (filter.isEmpty() ||
+                galaxy.getSystem(record.getSystemId()).getName().toLowerCase(Locale.ROOT).contains(filter)));
+
+        records.clear();
+        records.addAll(found);
+        countLabel.setText("Walk: " + found.size() + " (ostatnie " + history.getCapacity() + " tur)");
+    }
+
+    private static String outcome(CombatRecord record) {
+        if (record.getWinner() < 0) {
+            return "nierozstrzygnięta";
+        }
+        if (record.getOwner(record.getWinner()) == CombatRecord.PLAYER) {
+            return "zwycięstwo";
+        }
+        return record.involves(CombatRecord.PLAYER) ? "porażka" : "walka przeciwników";
+    }
+}
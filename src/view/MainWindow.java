@@ -1,6 +1,11 @@
 package view;
 
+import controller.AutosaveService;
+import controller.GalaxyGenerator;
 import controller.Game;
+import controller.ReplayJournal;
+import controller.SaveGame;
+import model.galaxy.MapSize;
 import model.orbits.OrbitSlot;
 import model.orbits.planets.Planet;
 import model.galaxy.StarSystem;
@@ -8,8 +13,15 @@ import view.fleets.AllFleetsPanel;
 import view.galaxy.GalaxyPanel;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MainWindow extends JFrame {
 
@@ -21,11 +33,48 @@ public class MainWindow extends JFrame {
     private JButton endTurnButton;
     private Game game;
 
+    private static final String SAVE_EXTENSION = "gss";
+    private static final int AUTOSAVE_SLOTS = 3;
+
+    // Jeden wątek na rozliczanie tur - wątek Swinga tylko pokazuje postęp
+    private static final ExecutorService TURN_WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread worker = new Thread(r, "turn-worker");
+        worker.setDaemon(true);
+        return worker;
+    });
+
+    private GalaxyPanel galaxyPanel;
+    private TurnProgressOverlay progressOverlay;
+
     private JLabel creditsLabel;
     private JLabel researchLabel;
 
 
     public MainWindow() {
+        this(newGame(MapSize.LARGE, chooseEnemyCount()));
+    }
+
+//    Nowa gra nagrywana od seeda - dziennik zawiera wtedy tylko parametry mapy i polecenia
+    private static Game newGame(MapSize size, int enemies) {
+        long seed = new SplittableRandom().nextLong();
+        Game game = new Game(GalaxyGenerator.generate(size, size.getStarCount(), seed, enemies));
+        game.setJournal(ReplayJournal.forNewGame(size, size.getStarCount(), seed, enemies));
+        return game;
+    }
+
+//    Zamknięcie okna wyboru oznacza jednego przeciwnika
+    private static int chooseEnemyCount() {
+        Integer[] counts = new Integer[GalaxyGenerator.MAX_ENEMIES];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = i + 1;
+        }
+
+        Object choice = JOptionPane.showInputDialog(null, "Liczba imperiów przeciwnika:", "Nowa gra",
+                JOptionPane.QUESTION_MESSAGE, null, counts, counts[0]);
+        return choice instanceof Integer count ? count : 1;
+    }
+
+    public MainWindow(Game game) {
         setTitle("Galactic Settlers");
         setContentPane(rootPanel);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -35,20 +84,26 @@ public class MainWindow extends JFrame {
         setSize(screen);
         setLocation(0, 0);
 
-        initPanels();
+        progressOverlay = new TurnProgressOverlay();
+        setGlassPane(progressOverlay);
+
+        initPanels(game);
         setVisible(true);
     }
 
-    private void initPanels() {
+    private void initPanels(Game game) {
         galaxyPanelContainer.setLayout(new BorderLayout());
 
-        GalaxyPanel galaxyPanel = new GalaxyPanel(this);
+        setGame(game);
+
+        galaxyPanel = new GalaxyPanel(this, game);
         galaxyPanelContainer.add(galaxyPanel, BorderLayout.CENTER);
 
         sidePanel.setPreferredSize(new Dimension(320, 0));
         sidePanel.setVisible(false);
 
         initTopPanel();
+        updateResourceDisplay();
     }
 
     private void initTopPanel() {
@@ -93,6 +148,25 @@ public class MainWindow extends JFrame {
         });
         topPanel.add(fleetsButton);
 
+        JButton combatButton = new JButton("Walki");
+        combatButton.setFocusPainted(false);
+        combatButton.addActionListener(e -> {
+            if (game != null) {
+                new CombatHistoryDialog(this, game).setVisible(true);
+            }
+        });
+        topPanel.add(combatButton);
+
+        JButton saveButton = new JButton("Zapisz");
+        saveButton.setFocusPainted(false);
+        saveButton.addActionListener(e -> saveGame());
+        topPanel.add(saveButton);
+
+        JButton loadButton = new JButton("Wczytaj");
+        loadButton.setFocusPainted(false);
+        loadButton.addActionListener(e -> loadGame());
+        topPanel.add(loadButton);
+
         endTurnButton = new JButton("Zakończ turę");
         endTurnButton.setFocusPainted(false);
         endTurnButton.addActionListener(e -> {
@@ -111,19 +185,77 @@ public class MainWindow extends JFrame {
             sidePanel.removeAll();
             sidePanel.setVisible(false);
 
-            game.nextTurn();
-
-            showCombatReports();
+            startTurn();
+        });
+        topPanel.add(endTurnButton);
+    }
 
-            if (game.isGameOver()) {
-                showGameOverDialog();
-                return;
+//    Tura liczy się w tle. Do jej końca mapa pokazuje ostatnią klatkę, a warstwa postępu
+//    przechwytuje wejście; wynik trafia do paneli przez invokeLater.
+    private void startTurn() {
+        Game turnGame = game;
+        galaxyPanel.freeze();
+        progressOverlay.start(turnGame.getTurn());
+
+        TURN_WORKER.execute(() -> {
+            // Przerwanej w połowie tury nie da się cofnąć inaczej niż z migawki
+            byte[] beforeTurn = SaveGame.encode(turnGame);
+            try {
+                turnGame.nextTurn(progressOverlay);
+                SwingUtilities.invokeLater(this::turnFinished);
+            } catch (CancellationException ex) {
+                SwingUtilities.invokeLater(() -> restoreTurn(turnGame, beforeTurn, null));
+            } catch (Throwable ex) {
+                // Także Error (np. StackOverflowError) - inaczej warstwa postępu zostałaby na stałe
+                SwingUtilities.invokeLater(() -> restoreTurn(turnGame, beforeTurn, ex));
             }
-
-            updateResourceDisplay();
-            repaint();
         });
-        topPanel.add(endTurnButton);
+    }
+
+    private void turnFinished() {
+        hideTurnProgress();
+
+        showCombatReports();
+
+        if (game.isGameOver()) {
+            showGameOverDialog();
+            return;
+        }
+
+        updateResourceDisplay();
+        repaint();
+    }
+
+//    Po przerwaniu albo błędzie gra wraca do stanu z początku tury, z tym samym dziennikiem i autozapisem
+    private void restoreTurn(Game interrupted, byte[] beforeTurn, Throwable error) {
+        // Najpierw zdjęcie warstwy postępu - nawet gdy odtworzenie stanu się nie uda
+        hideTurnProgress();
+
+        Game restored;
+        try {
+            restored = SaveGame.decode(beforeTurn);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Nie można odtworzyć stanu sprzed tury", ex);
+        }
+        restored.setJournal(interrupted.getJournal());
+        restored.setAutosave(interrupted.getAutosave());
+        restored.restoreCombatHistory(interrupted);
+
+        setGame(restored);
+        galaxyPanel.setGame(restored);
+
+        if (error != null) {
+            System.err.println("Tura " + interrupted.getTurn() + " przerwana błędem: " + error);
+            error.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Błąd podczas rozliczania tury:\n" + error +
+                            "\n\nPrzywrócono stan z początku tury.",
+                    "Błąd tury", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void hideTurnProgress() {
+        progressOverlay.setVisible(false);
+        galaxyPanel.unfreeze();
     }
 
     private void showGameOverDialog() {
@@ -136,14 +268,75 @@ public class MainWindow extends JFrame {
                 game.hasPlayerWon() ? "Wygrana!" : "Przegrana!",
                 JOptionPane.DEFAULT_OPTION,
                 game.hasPlayerWon() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE,
-                null, new String[]{"Nowa gra", "Wyjdź"}, "Nowa gra"
+                null, new String[]{"Nowa gra", "Wczytaj grę", "Wyjdź"}, "Nowa gra"
         );
 
         if (result == 0) {
             dispose();
             SwingUtilities.invokeLater(() -> new MainWindow());
+        } else if (result == 1) {
+            if (!loadGame()) {
+                showGameOverDialog();
+            }
         } else {
-            System.exit(0);
+            exitGame();
+        }
+    }
+
+//    Przed wyjściem czekamy, aż autozapis ostatniej tury trafi na dysk
+    private void exitGame() {
+        if (game != null && game.getAutosave() != null) {
+            try {
+                game.getAutosave().flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        System.exit(0);
+    }
+
+    private JFileChooser createSaveChooser() {
+        JFileChooser chooser = new JFileChooser();
+        if (game != null && game.getAutosave() != null && game.getAutosave().getDirectory().toFile().isDirectory()) {
+            chooser.setCurrentDirectory(game.getAutosave().getDirectory().toFile());
+        }
+        chooser.setFileFilter(new FileNameExtensionFilter("Zapis gry (*." + SAVE_EXTENSION + ")", SAVE_EXTENSION));
+        return chooser;
+    }
+
+    private void saveGame() {
+        if (game == null) return;
+
+        JFileChooser chooser = createSaveChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        File file = chooser.getSelectedFile();
+        if (!file.getName().endsWith("." + SAVE_EXTENSION)) {
+            file = new File(file.getParentFile(), file.getName() + "." + SAVE_EXTENSION);
+        }
+
+        try {
+            SaveGame.save(game, file.toPath());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Nie udało się zapisać gry:\n" + ex.getMessage(),
+                    "Błąd zapisu", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+//    Wczytana gra otwiera się w nowym oknie - zwraca false, jeśli nic nie wczytano
+    private boolean loadGame() {
+        JFileChooser chooser = createSaveChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return false;
+
+        try {
+            Game loaded = SaveGame.load(chooser.getSelectedFile().toPath());
+            dispose();
+            SwingUtilities.invokeLater(() -> new MainWindow(loaded));
+            return true;
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Nie udało się wczytać gry:\n" + ex.getMessage(),
+                    "Błąd wczytywania", JOptionPane.ERROR_MESSAGE);
+            return false;
         }
     }
 
@@ -258,6 +451,12 @@ public class MainWindow extends JFrame {
 
     public void setGame(Game game) {
         this.game = game;
+        if (game.getJournal() == null) {
+            game.setJournal(ReplayJournal.fromGame(game));
+        }
+        if (game.getAutosave() == null) {
+            game.setAutosave(new AutosaveService(AutosaveService.defaultDirectory(), AUTOSAVE_SLOTS));
+        }
         updateResourceDisplay();
     }
 
@@ -1,6 +1,7 @@
 package view;
 
 import controller.Game;
+import controller.GameCommand;
 import model.buildings.Building;
 import model.buildings.BuildingType;
 import model.galaxy.StarSystem;
@@ -103,7 +104,7 @@ public class PlanetInfoPanel extends JPanel {
             if (hasColonyShip) {
                 JButton colonizeButton = new JButton("Skolonizuj planetę (użyje statku kolonizacyjnego)");
                 colonizeButton.addActionListener(e -> {
-                    planet.colonize(fleet);
+                    game.execute(GameCommand.colonize(planet, fleet));
                     mainWindow.showPlanet(planet, system);
                 });
                 add(colonizeButton);
@@ -193,7 +194,7 @@ public class PlanetInfoPanel extends JPanel {
                 "Żywność",
                 planet.getPopulationOnFood(),
                 planet.getTotalPopulation(),
-                planet::setPopulationOnFood
+                value -> game.execute(GameCommand.populationOnFood(planet, value))
         ));
 
         popManagement.add(Box.createVerticalStrut(4));
@@ -202,7 +203,7 @@ public class PlanetInfoPanel extends JPanel {
                 "Budowa",
                 planet.getPopulationOnProduction(),
                 planet.getTotalPopulation(),
-                planet::setPopulationOnProduction
+                value -> game.execute(GameCommand.populationOnProduction(planet, value))
         ));
 
         popManagement.add(Box.createVerticalStrut(4));
@@ -211,7 +212,7 @@ public class PlanetInfoPanel extends JPanel {
                 "Badania",
                 planet.getPopulationOnResearch(),
                 planet.getTotalPopulation(),
-                planet::setPopulationOnResearch
+                value -> game.execute(GameCommand.populationOnResearch(planet, value))
         ));
 
         add(popManagement);
@@ -387,17 +388,17 @@ public class PlanetInfoPanel extends JPanel {
                 remove.setPreferredSize(btnSize);
 
                 up.addActionListener(e -> {
-                    planet.moveQueueUp(index);
+                    game.execute(GameCommand.moveQueueUp(planet, index));
                     mainWindow.showPlanet(planet, system);
                 });
 
                 down.addActionListener(e -> {
-                    planet.moveQueueDown(index);
+                    game.execute(GameCommand.moveQueueDown(planet, index));
                     mainWindow.showPlanet(planet, system);
                 });
 
                 remove.addActionListener(e -> {
-                    planet.removeFromQueue(index);
+                    game.execute(GameCommand.removeFromQueue(planet, index));
                     mainWindow.showPlanet(planet, system);
                 });
 
@@ -415,7 +416,7 @@ public class PlanetInfoPanel extends JPanel {
                     }
 
                     rushButton.addActionListener(e -> {
-                        boolean success = game.rushBuyOnPlanet(planet, system);
+                        boolean success = game.execute(GameCommand.rushBuy(planet));
                         if (success) {
                             mainWindow.updateResourceDisplay();
                             mainWindow.showPlanet(planet, system);
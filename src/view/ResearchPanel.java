@@ -1,6 +1,8 @@
 package view;
 
 import controller.Game;
+import controller.GameCommand;
+import model.tech.ResearchForecast;
 import model.tech.ResearchManager;
 import model.tech.Technology;
 
@@ -41,8 +43,9 @@ public class ResearchPanel extends JDialog {
             int progress = rm.getCurrentProgress();
             int cost = current.getCost();
             int percent = (progress * 100) / cost;
+            ResearchForecast forecast = rm.forecast(current, game.getNextTurnResearch());
             currentLabel.setText("Aktualnie: " + current.getDisplayName() +
-                    " (" + progress + "/" + cost + " - " + percent + "%)");
+                    " (" + progress + "/" + cost + " - " + percent + "%), " + turnsText(forecast));
         } else {
             currentLabel.setText("Brak aktualnych badań");
         }
@@ -149,6 +152,18 @@ public class ResearchPanel extends JDialog {
         infoPanel.add(costLabel);
         infoPanel.add(effectsLabel);
 
+        if (!rm.isResearched(tech)) {
+            ResearchForecast forecast = rm.forecast(tech, game.getNextTurnResearch());
+            String forecastText = "Czas badań: " + turnsText(forecast);
+            int chain = forecast.getSteps().size() - 1;
+            if (chain > 0) {
+                forecastText += " (razem z " + chain + (chain == 1 ? " wymaganiem)" : " wymaganiami)");
+            }
+            JLabel forecastLabel = new JLabel(forecastText);
+            forecastLabel.setFont(forecastLabel.getFont().deriveFont(10f));
+            infoPanel.add(forecastLabel);
+        }
+
         if (tech.hasPrerequisites() && !rm.isResearched(tech)) {
             StringBuilder prereqText = new StringBuilder("Wymaga: ");
             boolean first = true;
@@ -181,7 +196,7 @@ public class ResearchPanel extends JDialog {
             actionButton.setEnabled(true);
             actionButton.setBackground(new Color(255, 200, 100));
             actionButton.addActionListener(e -> {
-                rm.setCurrentResearch(null);
+                game.execute(GameCommand.setResearch(null));
                 mainWindow.updateResourceDisplay();
                 refreshTechList();
             });
@@ -189,7 +204,7 @@ public class ResearchPanel extends JDialog {
             actionButton.setText("Badaj");
             actionButton.setEnabled(true);
             actionButton.addActionListener(e -> {
-                rm.setCurrentResearch(tech);
+                game.execute(GameCommand.setResearch(tech));
                 mainWindow.updateResourceDisplay();
                 refreshTechList();
             });
@@ -202,4 +217,12 @@ public class ResearchPanel extends JDialog {
 
         return panel;
     }
+
+    private static String turnsText(ResearchForecast forecast) {
+        if (!forecast.isReachable()) {
+            return "brak punktów badań";
+        }
+        int turns = forecast.getTurns();
+        return turns + (turns == 1 ? " tura" : turns < 5 ? " tury" : " tur");
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package view;
 
 import controller.Game;
+import controller.GameCommand;
 import model.orbits.AsteroidField;
 import model.orbits.GasGiant;
 import model.orbits.OrbitSlot;
@@ -60,7 +61,8 @@ public class SystemInfoPanel extends JPanel {
             SpaceInstallation station = system.getBattleStation();
             boolean isPlayerStation = station.getOwner() == null;
 
-            String stationOwner = isPlayerStation ? "Twój Posterunek Bojowy" : "Posterunek Bojowy przeciwnika";
+            String stationOwner = isPlayerStation ? "Twój Posterunek Bojowy" :
+                    "Posterunek Bojowy przeciwnika (" + station.getOwner().getName() + ")";
             JLabel stationLabel = new JLabel(stationOwner);
             stationLabel.setFont(stationLabel.getFont().deriveFont(Font.BOLD, 12f));
             stationLabel.setForeground(isPlayerStation ? new Color(100, 200, 100) : new Color(255, 100, 100));
@@ -75,7 +77,7 @@ public class SystemInfoPanel extends JPanel {
                 JButton buildStationBtn = new JButton("Zbuduj Posterunek Bojowy (100 prod.)");
                 buildStationBtn.setAlignmentX(Component.LEFT_ALIGNMENT);
                 buildStationBtn.addActionListener(e -> {
-                    fleet.startProject(SpaceInstallationType.BATTLE_STATION, null);
+                    game.execute(GameCommand.startProject(fleet, SpaceInstallationType.BATTLE_STATION, null));
                     mainWindow.onSystemSelected(system);
                 });
                 add(buildStationBtn);
@@ -102,7 +104,8 @@ public class SystemInfoPanel extends JPanel {
         if (orbit.getObject() instanceof Planet planet) {
             String planetOwner = "";
             if (planet.isColonized()) {
-                planetOwner = planet.getOwner() == null ? " [TWOJA KOLONIA]" : " [KOLONIA PRZECIWNIKA]";
+                planetOwner = planet.getOwner() == null ? " [TWOJA KOLONIA]" :
+                        " [KOLONIA PRZECIWNIKA: " + planet.getOwner().getName() + "]";
             }
 
             JButton button = new JButton(
@@ -156,7 +159,7 @@ public class SystemInfoPanel extends JPanel {
                         cancelBtn.setFocusPainted(false);
                         cancelBtn.setMaximumSize(new Dimension(Integer.MAX_VALUE, 25));
                         cancelBtn.addActionListener(e -> {
-                            fleet.cancelProject();
+                            game.execute(GameCommand.cancelProject(fleet));
                             mainWindow.onSystemSelected(system);
                         });
                         panel.add(cancelBtn);
@@ -183,7 +186,7 @@ public class SystemInfoPanel extends JPanel {
                                         SpaceInstallationType.ASTEROID_LABORATORY :
                                         SpaceInstallationType.ASTEROID_MINE;
 
-                                fleet.startProject(type, asteroid);
+                                game.execute(GameCommand.startProject(fleet, type, asteroid));
                                 mainWindow.onSystemSelected(system);
                             }
                         });
@@ -226,7 +229,7 @@ public class SystemInfoPanel extends JPanel {
                         cancelBtn.setFocusPainted(false);
                         cancelBtn.setMaximumSize(new Dimension(Integer.MAX_VALUE, 25));
                         cancelBtn.addActionListener(e -> {
-                            fleet.cancelProject();
+                            game.execute(GameCommand.cancelProject(fleet));
                             mainWindow.onSystemSelected(system);
                         });
                         panel.add(cancelBtn);
@@ -236,7 +239,7 @@ public class SystemInfoPanel extends JPanel {
                         buildBtn.setFocusPainted(false);
                         buildBtn.setMaximumSize(new Dimension(Integer.MAX_VALUE, 25));
                         buildBtn.addActionListener(e -> {
-                            fleet.startProject(SpaceInstallationType.GAS_MINE, giant);
+                            game.execute(GameCommand.startProject(fleet, SpaceInstallationType.GAS_MINE, giant));
                             mainWindow.onSystemSelected(system);
                         });
                         panel.add(buildBtn);
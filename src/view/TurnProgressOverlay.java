@@ -0,0 +1,98 @@
+package view;
+
+import controller.TurnProgressListener;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.MouseAdapter;
+
+// Półprzezroczysta warstwa (glass pane) na czas liczenia tury: pokazuje bieżącą fazę
+// i przechwytuje mysz oraz klawiaturę, żeby gracz nie zmieniał gry w trakcie rozliczania.
+public class TurnProgressOverlay extends JPanel implements TurnProgressListener {
+
+    private final JLabel phaseLabel;
+    private final JProgressBar progressBar;
+    private final JButton cancelButton;
+
+    private volatile boolean cancelled;
+
+    public TurnProgressOverlay() {
+        setOpaque(false);
+        setLayout(new GridBagLayout());
+        setFocusable(true);
+        setFocusTraversalKeysEnabled(false);
+
+        addMouseListener(new MouseAdapter() {});
+        addMouseMotionListener(new MouseAdapter() {});
+        addMouseWheelListener(e -> {});
+        addKeyListener(new KeyAdapter() {});
+
+        JPanel box = new JPanel();
+        box.setLayout(new BoxLayout(box, BoxLayout.Y_AXIS));
+        box.setBackground(new Color(30, 30, 30));
+        box.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(100, 100, 100)),
+                BorderFactory.createEmptyBorder(15, 25, 15, 25)
+        ));
+
+        phaseLabel = new JLabel("Kończenie tury...");
+        phaseLabel.setForeground(Color.WHITE);
+        phaseLabel.setFont(phaseLabel.getFont().deriveFont(Font.BOLD, 14f));
+        phaseLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        box.add(phaseLabel);
+
+        box.add(Box.createVerticalStrut(10));
+
+        progressBar = new JProgressBar();
+        progressBar.setPreferredSize(new Dimension(260, 16));
+        progressBar.setAlignmentX(Component.CENTER_ALIGNMENT);
+        box.add(progressBar);
+
+        box.add(Box.createVerticalStrut(10));
+
+        cancelButton = new JButton("Przerwij");
+        cancelButton.setFocusPainted(false);
+        cancelButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        cancelButton.addActionListener(e -> {
+            cancelled = true;
+            cancelButton.setEnabled(false);
+            phaseLabel.setText("Przerywanie tury...");
+        });
+        box.add(cancelButton);
+
+        add(box);
+    }
+
+//    Przygotowanie przed kolejną turą - wywoływane w wątku Swinga
+    public void start(int turn) {
+        cancelled = false;
+        cancelButton.setEnabled(true);
+        phaseLabel.setText("Kończenie tury " + turn + "...");
+        progressBar.setValue(0);
+        setVisible(true);
+        requestFocusInWindow();
+    }
+
+    @Override
+    public void phaseStarted(int phase, int phaseCount, String name) {
+        SwingUtilities.invokeLater(() -> {
+            if (cancelled) return;
+            phaseLabel.setText(name + "...");
+            progressBar.setMaximum(phaseCount);
+            progressBar.setValue(phase);
+        });
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(new Color(0, 0, 0, 120));
+        g.fillRect(0, 0, getWidth(), getHeight());
+        super.paintComponent(g);
+    }
+}
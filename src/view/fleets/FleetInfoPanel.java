@@ -53,7 +53,7 @@ public class FleetInfoPanel extends JPanel {
                 BorderFactory.createEmptyBorder(8, 10, 8, 10)
         ));
 
-        ResearchManager rm = isPlayerFleet ? game.getResearchManager() : game.getEnemyResearchManager();
+        ResearchManager rm = game.getResearchManager(fleet.getOwner());
 
         String fleetOwner = isPlayerFleet ? "Flota gracza" : "Flota przeciwnika";
         JLabel fleetLabel = new JLabel(fleetOwner + " (" + fleet.getShipCount() + " statków)");
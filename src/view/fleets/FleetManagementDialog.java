@@ -1,10 +1,11 @@
 package view.fleets;
 
+import controller.CombatPredictor;
 import controller.Game;
+import controller.GameCommand;
 import controller.Pathfinder;
 import model.galaxy.StarSystem;
 import model.ships.Fleet;
-import model.ships.Ship;
 import model.ships.ShipType;
 import model.tech.ResearchManager;
 
@@ -110,7 +111,7 @@ public class FleetManagementDialog extends JDialog {
             JButton cancelButton = new JButton("Anuluj podróż");
             cancelButton.setFocusPainted(false);
             cancelButton.addActionListener(e -> {
-                fleet.setDestination(null);
+                game.execute(GameCommand.setDestination(fleet, null));
                 dispose();
                 onClose.run();
             });
@@ -154,8 +155,7 @@ public class FleetManagementDialog extends JDialog {
 
         String[] options = availableSystems.stream()
                 .map(s -> {
-                    List<StarSystem> path = Pathfinder.findPath(location, s);
-                    int distance = path != null ? path.size() - 1 : -1;
+                    int distance = Pathfinder.hopDistance(location, s);
 
                     if (distance == -1) {
                         return s.getName() + " (NIEOSIĄGALNY)";
@@ -185,8 +185,8 @@ public class FleetManagementDialog extends JDialog {
                     .findFirst()
                     .orElse(null);
 
-            if (destination != null) {
-                boolean success = fleet.setDestination(destination);
+            if (destination != null && confirmBattle(destination)) {
+                boolean success = game.execute(GameCommand.setDestination(fleet, destination));
 
                 if (success) {
                     List<StarSystem> path = fleet.getRoute();
@@ -219,6 +219,38 @@ public class FleetManagementDialog extends JDialog {
         }
     }
 
+//    Przed lotem do widocznego systemu z wrogimi siłami pokazuje prognozę walki i pyta o potwierdzenie
+    private boolean confirmBattle(StarSystem destination) {
+        if (!game.getFogOfWar().isSystemVisible(destination)) {
+            return true;
+        }
+
+        CombatPredictor.Prediction prediction = CombatPredictor.predictAttack(
+                fleet, destination, game::getResearchManager);
+        if (prediction == null) {
+            return true;
+        }
+
+        String message = String.format(
+                "W systemie %s dojdzie do walki (prognoza dla obecnych sił, %d symulacji):%n%n" +
+                        "Zwycięstwo: %.0f%%%nPorażka: %.0f%%%nNierozstrzygnięta: %.0f%%%n%n" +
+                        "Spodziewane straty: %.1f z %d statków%nStraty wroga: %.1f z %d statków%n%n" +
+                        "Wysłać flotę?",
+                destination.getName(), prediction.trials,
+                prediction.winChance * 100, prediction.lossChance * 100, prediction.drawChance * 100,
+                prediction.expectedLosses, prediction.ships,
+                prediction.expectedEnemyLosses, prediction.enemyShips);
+
+        int choice = JOptionPane.showConfirmDialog(
+                this,
+                message,
+                "Prognoza walki",
+                JOptionPane.YES_NO_OPTION,
+                prediction.winChance >= 0.5 ? JOptionPane.QUESTION_MESSAGE : JOptionPane.WARNING_MESSAGE
+        );
+        return choice == JOptionPane.YES_OPTION;
+    }
+
     private void showSplitDialog() {
         JDialog splitDialog = new JDialog(this, "Oddziel statki", true);
         splitDialog.setLayout(new BorderLayout(10, 10));
@@ -266,25 +298,16 @@ public class FleetManagementDialog extends JDialog {
 
         JButton confirmButton = new JButton("Potwierdź");
         confirmButton.addActionListener(e -> {
-            List<Ship> shipsToMove = new ArrayList<>();
+            Map<ShipType, Integer> shipsToMove = new EnumMap<>(ShipType.class);
+            int totalToMove = 0;
 
             for (ShipType type : ShipType.values()) {
                 if (spinners.containsKey(type)) {
-                    int toMove = (int) spinners.get(type).getValue();
+                    int toMove = Math.min((int) spinners.get(type).getValue(), fleet.countShipType(type));
 
                     if (toMove > 0) {
-                        int moved = 0;
-
-                        List<Ship> fleetShips = new ArrayList<>(fleet.getShips());
-
-                        for (Ship ship : fleetShips) {
-                            if (moved >= toMove) break;
-
-                            if (ship.getType() == type) {
-                                shipsToMove.add(ship);
-                                moved++;
-                            }
-                        }
+                        shipsToMove.put(type, toMove);
+                        totalToMove += toMove;
                     }
                 }
             }
@@ -299,7 +322,7 @@ public class FleetManagementDialog extends JDialog {
                 return;
             }
 
-            if (shipsToMove.size() >= fleet.getShipCount()) {
+            if (totalToMove >= fleet.getShipCount()) {
                 JOptionPane.showMessageDialog(
                         splitDialog,
                         "Musisz zostawić przynajmniej jeden statek w oryginalnej flocie!",
@@ -309,18 +332,15 @@ public class FleetManagementDialog extends JDialog {
                 return;
             }
 
-            Fleet newFleet = new Fleet(location);
-
-            for (Ship ship : shipsToMove) {
-                fleet.removeShip(ship);
-                newFleet.addShip(ship);
+            int[] counts = new int[ShipType.values().length];
+            for (Map.Entry<ShipType, Integer> entry : shipsToMove.entrySet()) {
+                counts[entry.getKey().ordinal()] = entry.getValue();
             }
-
-            location.addFleet(newFleet);
+            game.execute(GameCommand.splitFleet(fleet, counts));
 
             JOptionPane.showMessageDialog(
                     splitDialog,
-                    "Utworzono nową flotę z " + shipsToMove.size() + " statkami",
+                    "Utworzono nową flotę z " + totalToMove + " statkami",
                     "Sukces",
                     JOptionPane.INFORMATION_MESSAGE
             );
@@ -0,0 +1,109 @@
+package view.galaxy;
+
+import java.awt.*;
+import java.util.Arrays;
+
+// Znaczniki flot nad gwiazdami. Z daleka floty są zbierane w komórki ekranu i każda komórka dostaje
+// jeden znacznik na stronę z liczbą flot, zamiast osobnego trójkąta nad każdym systemem.
+class FleetMarkers {
+
+    private static final int CELL = 64;
+
+    static final Color PLAYER_FLEET_MARKER = new Color(255, 200, 100);
+    static final Color AI_FLEET_MARKER = new Color(255, 50, 50);
+
+    private final int[] xPoints = new int[3];
+    private final int[] yPoints = new int[3];
+
+    // Komórka ekranu -> indeks grupy + 1 (0 = pusta)
+    private int[] cellGroup = new int[0];
+    private int cols;
+    private int rows;
+
+    private int groups;
+    private int[] anchorX = new int[16];
+    private int[] anchorY = new int[16];
+    private int[] playerFleets = new int[16];
+    private int[] aiFleets = new int[16];
+
+//    Znacznik nad gwiazdą; centerX to środek gwiazdy, y jej górna krawędź
+    void drawMarker(Graphics2D g2, int centerX, int y, double zoom, boolean player, boolean ai) {
+        if (player) {
+            drawTriangle(g2, centerX, y, zoom, PLAYER_FLEET_MARKER);
+        }
+        if (ai) {
+            drawTriangle(g2, centerX + (player ? 10 : 0), y, zoom, AI_FLEET_MARKER);
+        }
+    }
+
+    private void drawTriangle(Graphics2D g2, int centerX, int y, double zoom, Color color) {
+        int triangleSize = (int) (6 * zoom);
+
+        xPoints[0] = centerX;
+        xPoints[1] = centerX - triangleSize / 2;
+        xPoints[2] = centerX + triangleSize / 2;
+        yPoints[0] = y - 8;
+        yPoints[1] = y - 8 - triangleSize;
+        yPoints[2] = y - 8 - triangleSize;
+
+        g2.setColor(color);
+        g2.fillPolygon(xPoints, yPoints, 3);
+    }
+
+    void reset(int width, int height) {
+        cols = Math.max(1, (width + CELL - 1) / CELL);
+        rows = Math.max(1, (height + CELL - 1) / CELL);
+        if (cellGroup.length < cols * rows) {
+            cellGroup = new int[cols * rows];
+        } else {
+            Arrays.fill(cellGroup, 0, cols * rows, 0);
+        }
+        groups = 0;
+    }
+
+//    Floty systemu trafiają do grupy komórki; znacznik grupy stoi nad pierwszym dodanym systemem
+    void add(int centerX, int y, int player, int ai) {
+        if (player == 0 && ai == 0) return;
+
+        int col = Math.min(cols - 1, Math.max(0, Math.floorDiv(centerX, CELL)));
+        int row = Math.min(rows - 1, Math.max(0, Math.floorDiv(y, CELL)));
+        int cell = row * cols + col;
+
+        int group = cellGroup[cell] - 1;
+        if (group < 0) {
+            if (groups == anchorX.length) {
+                int length = groups * 2;
+                anchorX = Arrays.copyOf(anchorX, length);
+                anchorY = Arrays.copyOf(anchorY, length);
+                playerFleets = Arrays.copyOf(playerFleets, length);
+                aiFleets = Arrays.copyOf(aiFleets, length);
+            }
+            group = groups++;
+            cellGroup[cell] = group + 1;
+            anchorX[group] = centerX;
+            anchorY[group] = y;
+            playerFleets[group] = 0;
+            aiFleets[group] = 0;
+        }
+        playerFleets[group] += player;
+        aiFleets[group] += ai;
+    }
+
+    void drawGroups(Graphics2D g2, double zoom) {
+        for (int group = 0; group < groups; group++) {
+            int player = playerFleets[group];
+            int ai = aiFleets[group];
+            int x = anchorX[group];
+            int y = anchorY[group];
+
+            drawMarker(g2, x, y, zoom, player > 0, ai > 0);
+
+            // Liczba flot przy znaczniku, gdy w obszarze jest ich więcej niż jedna
+            int textX = x + (player > 0 && ai > 0 ? 10 : 0) + (int) (6 * zoom) / 2 + 2;
+            if (player + ai > 1) {
+                g2.setColor(player > 0 ? PLAYER_FLEET_MARKER : AI_FLEET_MARKER);
+                g2.drawString(player > 0 && ai > 0 ? player + "/" + ai : String.valueOf(player + ai), textX, y - 8);
+            }
+        }
+    }
+}
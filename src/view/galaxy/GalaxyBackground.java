@@ -1,7 +1,5 @@
 package view.galaxy;
 
-import ui.Camera;
-
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -13,23 +11,27 @@ public class GalaxyBackground {
 
     public GalaxyBackground() {
         try {
-            image = ImageIO.read(
+            BufferedImage loaded = ImageIO.read(
                     getClass().getResource("/galaxy_mask.png")
             );
+
+            // PNG wczytuje się jako 3BYTE_BGR - skalowanie z INT_RGB jest wyraźnie szybsze
+            image = new BufferedImage(loaded.getWidth(), loaded.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            g.drawImage(loaded, 0, 0, null);
+            g.dispose();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public void draw(Graphics2D g, Camera camera,
+//    Rysuje tło w przestrzeni pikseli przy danym przybliżeniu - punkt (0, 0) świata w (0, 0) grafiki
+    public void draw(Graphics2D g, double zoom,
                      int worldWidth, int worldHeight) {
 
-        int x = camera.worldToScreenX(0);
-        int y = camera.worldToScreenY(0);
-
-        int w = (int) (worldWidth * camera.getZoom());
-        int h = (int) (worldHeight * camera.getZoom());
+        int w = (int) (worldWidth * zoom);
+        int h = (int) (worldHeight * zoom);
 
-        g.drawImage(image, x, y, w, h, null);
+        g.drawImage(image, 0, 0, w, h, null);
     }
 }
@@ -4,10 +4,10 @@ import controller.FogOfWar;
 import controller.GalaxyGenerator;
 import controller.Game;
 import model.galaxy.Galaxy;
-import model.galaxy.MapSize;
 import model.galaxy.StarSystem;
 import model.orbits.OrbitSlot;
 import model.orbits.planets.Planet;
+import model.ships.Fleet;
 import ui.Camera;
 import view.MainWindow;
 
@@ -16,22 +16,51 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.List;
 
 public class GalaxyPanel extends JPanel {
 
     private static final int STAR_SIZE = 12;
 
-    private final Galaxy galaxy;
+    // Zapas wokół widoku w pikselach ekranu - nazwa systemu rysowana jest na prawo od gwiazdy,
+    // a znaczniki flot nad nią, więc gwiazda tuż za krawędzią nadal może być częściowo widoczna
+    private static final int LABEL_MARGIN = 160;
+    private static final int MARKER_MARGIN = 30;
+
+    // Poziomy szczegółowości według przybliżenia kamery (1.0 - 3.0)
+    private static final double DETAIL_ZOOM = 2.0;  // od tego poziomu wszystkie nazwy, bez siatki kolizji
+    private static final double FAR_ZOOM = 1.5;     // poniżej znaczniki flot zbiorczo dla obszarów ekranu
+
+    private static final int LABEL_IMPORTANT = 0;
+    private static final int LABEL_VISIBLE = 1;
+    private static final int LABEL_HIDDEN = 2;
+
+    private static final Color PLAYER_COLONY_RING = new Color(100, 255, 100, 200);
+    private static final Color AI_COLONY_RING = new Color(255, 100, 100, 200);
+    private static final Color HIDDEN_STAR = new Color(100, 100, 100, 150);
+
+    private Galaxy galaxy;
     private StarSystem selectedSystem;
     private final MainWindow mainWindow;
     private final Camera camera;
-    private final GalaxyBackground background;
+    private final GalaxyTileCache tiles;
+    private final StarLabelCache labels = new StarLabelCache();
+    private final LabelGrid labelGrid = new LabelGrid();
+    private final FleetMarkers fleetMarkers = new FleetMarkers();
+    private byte[] labelPriorities = new byte[64];
 
     private Point lastMouse;
     private Game game;
 
-    public GalaxyPanel(MainWindow mainWindow) {
+    // Ostatnia klatka sprzed tury - rysowana zamiast modelu, który zmienia się w wątku roboczym
+    private BufferedImage frozenFrame;
+
+    public GalaxyPanel(MainWindow mainWindow, Game game) {
         this.mainWindow = mainWindow;
+        this.game = game;
+        this.galaxy = game.getGalaxy();
         setBackground(Color.BLACK);
 
         camera = new Camera(0, 0);
@@ -43,12 +72,8 @@ public class GalaxyPanel extends JPanel {
                 getHeight()
         );
 
-        galaxy = GalaxyGenerator.generate(MapSize.LARGE);
-        this.game = new Game(galaxy);
-        mainWindow.setGame(game);
-
-
-        background = new GalaxyBackground();
+        tiles = new GalaxyTileCache(new GalaxyBackground(), STAR_SIZE);
+        tiles.setGalaxy(galaxy);
 
         SwingUtilities.invokeLater(this::centerCameraOnSol);
 
@@ -97,6 +122,35 @@ public class GalaxyPanel extends JPanel {
     }
 
 
+//    Zapamiętuje bieżący obraz mapy; do unfreeze() panel nie czyta stanu gry
+    public void freeze() {
+        if (getWidth() <= 0 || getHeight() <= 0) return;
+
+        BufferedImage frame = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = frame.createGraphics();
+        try {
+            paintComponent(g2);
+        } finally {
+            g2.dispose();
+        }
+        frozenFrame = frame;
+    }
+
+    public void unfreeze() {
+        frozenFrame = null;
+        repaint();
+    }
+
+//    Podmiana gry bez zmiany widoku kamery (np. po odtworzeniu stanu sprzed przerwanej tury)
+    public void setGame(Game game) {
+        this.game = game;
+        this.galaxy = game.getGalaxy();
+        this.selectedSystem = null;
+        tiles.setGalaxy(galaxy);
+        labels.clear();
+        repaint();
+    }
+
     private void centerCameraOnSol() {
         StarSystem home = galaxy.getHomeSystem();
         if (home == null) return;
@@ -115,21 +169,7 @@ public class GalaxyPanel extends JPanel {
 
 
     private void handleClick(int x, int y) {
-        StarSystem clicked = null;
-
-        for (StarSystem system : galaxy.getSystems()) {
-            int size = (int) (STAR_SIZE * camera.getZoom());
-
-            int sx = camera.worldToScreenX(system.getX());
-            int sy = camera.worldToScreenY(system.getY());
-
-            if (new Rectangle(sx, sy, size, size).contains(x, y)) {
-                clicked = system;
-                break;
-            }
-        }
-
-        selectedSystem = clicked;
+        selectedSystem = systemAt(x, y);
 
         if (selectedSystem != null && game.getFogOfWar().isSystemVisible(selectedSystem)) {
             mainWindow.onSystemSelected(selectedSystem);
@@ -149,57 +189,68 @@ public class GalaxyPanel extends JPanel {
     }
 
 
+//    Gwiazda pod kursorem: najbliższy środek gwiazdy z indeksu przestrzennego, o ile kliknięcie trafiło w jej kwadrat
+    private StarSystem systemAt(int x, int y) {
+        double half = STAR_SIZE / 2.0;
+        List<StarSystem> candidates = galaxy.getSpatialIndex().nearest(
+                camera.screenToWorldX(x) - half, camera.screenToWorldY(y) - half, 1, STAR_SIZE, null
+        );
+        if (candidates.isEmpty()) return null;
+
+        StarSystem nearest = candidates.get(0);
+
+        int size = (int) (STAR_SIZE * camera.getZoom());
+        int sx = camera.worldToScreenX(nearest.getX());
+        int sy = camera.worldToScreenY(nearest.getY());
+
+        boolean hit = x >= sx && x < sx + size && y >= sy && y < sy + size;
+        return hit ? nearest : null;
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
+        if (frozenFrame != null) {
+            g.drawImage(frozenFrame, 0, 0, null);
+            return;
+        }
+
         super.paintComponent(g);
         Graphics2D g2 = (Graphics2D) g;
 
-        background.draw(
+        tiles.draw(
                 g2,
                 camera,
+                getWidth(),
+                getHeight(),
                 GalaxyGenerator.getGalaxyWidth(),
                 GalaxyGenerator.getGalaxyHeight()
         );
 
-        Stroke oldStroke = g2.getStroke();
-
-        g2.setStroke(new BasicStroke(
-                2.5f,
-                BasicStroke.CAP_ROUND,
-                BasicStroke.JOIN_ROUND
-        ));
-
-        Color mainLine = new Color(120, 170, 255, 140);
-        Color glowLine = new Color(120, 170, 255, 60);
+        // Prostokąt widoku w jednostkach świata; gwiazda rysowana jest od (x, y) w prawo i w dół
+        double zoom = camera.getZoom();
+        double viewMinX = camera.screenToWorldX(0) - STAR_SIZE - LABEL_MARGIN / zoom;
+        double viewMinY = camera.screenToWorldY(0) - STAR_SIZE;
+        double viewMaxX = camera.screenToWorldX(getWidth());
+        double viewMaxY = camera.screenToWorldY(getHeight()) + MARKER_MARGIN / zoom;
 
-        for (StarSystem system : galaxy.getSystems()) {
-            for (StarSystem neighbor : system.getNeighbors()) {
-
-                int x1 = camera.worldToScreenX(system.getX() + STAR_SIZE / 2.0);
-                int y1 = camera.worldToScreenY(system.getY() + STAR_SIZE / 2.0);
-
-                int x2 = camera.worldToScreenX(neighbor.getX() + STAR_SIZE / 2.0);
-                int y2 = camera.worldToScreenY(neighbor.getY() + STAR_SIZE / 2.0);
-
-                g2.setStroke(new BasicStroke(5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                g2.setColor(glowLine);
-                g2.drawLine(x1, y1, x2, y2);
+        FogOfWar fog = game.getFogOfWar();
 
-                g2.setStroke(new BasicStroke(2.5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                g2.setColor(mainLine);
-                g2.drawLine(x1, y1, x2, y2);
-            }
+        int size = (int) (STAR_SIZE * zoom);
+        boolean groupFleets = zoom < FAR_ZOOM;
+        if (groupFleets) {
+            fleetMarkers.reset(getWidth(), getHeight());
         }
 
-        g2.setStroke(oldStroke);
-
-        FogOfWar fog = game.getFogOfWar();
+        List<StarSystem> visibleSystems = galaxy.getSpatialIndex().inRect(viewMinX, viewMinY, viewMaxX, viewMaxY);
+        if (labelPriorities.length < visibleSystems.size()) {
+            labelPriorities = new byte[Math.max(visibleSystems.size(), labelPriorities.length * 2)];
+        }
 
-        for (StarSystem system : galaxy.getSystems()) {
+        for (int i = 0; i < visibleSystems.size(); i++) {
+            StarSystem system = visibleSystems.get(i);
             boolean isVisible = fog.isSystemVisible(system);
             boolean isSelected = (system == selectedSystem);
 
-            int size = (int) (STAR_SIZE * camera.getZoom());
             int x = camera.worldToScreenX(system.getX());
             int y = camera.worldToScreenY(system.getY());
 
@@ -221,42 +272,76 @@ public class GalaxyPanel extends JPanel {
                 }
 
                 if (playerColony != null) {
-                    g2.setColor(new Color(100, 255, 100, 200));
+                    g2.setColor(PLAYER_COLONY_RING);
                     g2.drawOval(x - 3, y - 3, size + 6, size + 6);
                     g2.drawOval(x - 4, y - 4, size + 8, size + 8);
                 } else if (aiColony != null) {
-                    g2.setColor(new Color(255, 100, 100, 200));
+                    g2.setColor(AI_COLONY_RING);
                     g2.drawOval(x - 3, y - 3, size + 6, size + 6);
                     g2.drawOval(x - 4, y - 4, size + 8, size + 8);
                 }
 
-                boolean hasPlayerFleet = system.getFleets().stream().anyMatch(f -> f.getOwner() == null);
-                boolean hasAIFleet = system.getFleets().stream().anyMatch(f -> f.getOwner() != null);
-
-                if (hasPlayerFleet) {
-                    g2.setColor(new Color(255, 200, 100));
-                    int triangleSize = (int) (6 * camera.getZoom());
-                    int[] xPoints = {x + size/2, x + size/2 - triangleSize/2, x + size/2 + triangleSize/2};
-                    int[] yPoints = {y - 8, y - 8 - triangleSize, y - 8 - triangleSize};
-                    g2.fillPolygon(xPoints, yPoints, 3);
+                int playerFleets = 0;
+                int aiFleets = 0;
+                for (Fleet fleet : system.getFleets()) {
+                    if (fleet.getOwner() == null) {
+                        playerFleets++;
+                    } else {
+                        aiFleets++;
+                    }
                 }
 
-                if (hasAIFleet) {
-                    g2.setColor(new Color(255, 50, 50));
-                    int triangleSize = (int) (6 * camera.getZoom());
-                    int offsetX = hasPlayerFleet ? 10 : 0;
-                    int[] xPoints = {x + size/2 + offsetX, x + size/2 - triangleSize/2 + offsetX, x + size/2 + triangleSize/2 + offsetX};
-                    int[] yPoints = {y - 8, y - 8 - triangleSize, y - 8 - triangleSize};
-                    g2.fillPolygon(xPoints, yPoints, 3);
+                if (groupFleets) {
+                    fleetMarkers.add(x + size / 2, y, playerFleets, aiFleets);
+                } else {
+                    fleetMarkers.drawMarker(g2, x + size / 2, y, zoom, playerFleets > 0, aiFleets > 0);
                 }
 
+                boolean colony = playerColony != null || aiColony != null;
+                labelPriorities[i] = (byte) (isSelected || colony ? LABEL_IMPORTANT : LABEL_VISIBLE);
+
             } else {
-                g2.setColor(new Color(100, 100, 100, 150));
+                g2.setColor(HIDDEN_STAR);
                 g2.fillOval(x, y, size, size);
+
+                labelPriorities[i] = (byte) (isSelected ? LABEL_IMPORTANT : LABEL_HIDDEN);
+            }
+        }
+
+        if (groupFleets) {
+            fleetMarkers.drawGroups(g2, zoom);
+        }
+
+        drawLabels(g2, visibleSystems, size, zoom);
+    }
+
+//    Z bliska wszystkie nazwy; dalej siatka kolizji - najpierw wybrany system i kolonie, potem systemy
+//    w zasięgu czujników, na końcu pozostałe, o ile zostało na nie miejsce
+    private void drawLabels(Graphics2D g2, List<StarSystem> systems, int size, double zoom) {
+        boolean declutter = zoom < DETAIL_ZOOM;
+        if (declutter) {
+            labelGrid.reset(getWidth(), getHeight());
+        }
+
+        for (int priority = LABEL_IMPORTANT; priority <= LABEL_HIDDEN; priority++) {
+            for (int i = 0; i < systems.size(); i++) {
+                if (declutter && labelPriorities[i] != priority) continue;
+
+                StarSystem system = systems.get(i);
+                GlyphVector name = labels.get(g2, system);
+
+                int x = camera.worldToScreenX(system.getX()) + size + 4;
+                int y = camera.worldToScreenY(system.getY()) + size;
+
+                if (declutter && !labelGrid.tryReserve(x, y - labels.ascent(), labels.width(system), labels.height())) {
+                    continue;
+                }
+
+                g2.setColor(system == selectedSystem ? Color.YELLOW : Color.WHITE);
+                g2.drawGlyphVector(name, x, y);
             }
 
-            g2.setColor(isSelected ? Color.YELLOW : Color.WHITE);
-            g2.drawString(system.getName(), x + size + 4, y + size);
+            if (!declutter) break;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,187 @@
+package view.galaxy;
+
+import model.galaxy.Galaxy;
+import model.galaxy.StarSystem;
+import ui.Camera;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Statyczna warstwa mapy - tło i sieć połączeń - pocięta na kafelki wyrenderowane dla przedziału przybliżenia.
+// Kafelek powstaje przy pierwszym pokazaniu i zostaje w pamięci, więc przesuwanie widoku to kopiowanie
+// kilku gotowych obrazów. Między progami przedziału kafelki są tylko skalowane przy rysowaniu.
+class GalaxyTileCache {
+
+    private static final int TILE_SIZE = 256;
+    private static final double ZOOM_STEP = 0.05;
+
+    // Około dwóch ekranów Full HD kafelków; najdawniej rysowane są wyrzucane pierwsze
+    private static final int MAX_TILES = 128;
+
+    private static final BasicStroke LANE_GLOW_STROKE = new BasicStroke(5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final BasicStroke LANE_STROKE = new BasicStroke(2.5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+
+    // Każde połączenie rysowane jest raz - przezroczystość odpowiada dawnemu dwukrotnemu rysowaniu
+    private static final Color LANE_GLOW = new Color(120, 170, 255, 106);
+    private static final Color LANE_MAIN = new Color(120, 170, 255, 203);
+
+    // Zapas w jednostkach świata na grubość linii przy szukaniu połączeń przecinających kafelek
+    private static final double LANE_MARGIN = 4;
+
+    private final GalaxyBackground background;
+    private final int starSize;
+
+    private Galaxy galaxy;
+    private int[] laneOffsets;
+
+    private final Map<Long, BufferedImage> tiles = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+
+    GalaxyTileCache(GalaxyBackground background, int starSize) {
+        this.background = background;
+        this.starSize = starSize;
+    }
+
+    void setGalaxy(Galaxy galaxy) {
+        this.galaxy = galaxy;
+        tiles.clear();
+    }
+
+    void draw(Graphics2D g, Camera camera, int width, int height, int worldWidth, int worldHeight) {
+        // Nowa sieć połączeń (np. po wczytaniu gry) unieważnia wszystkie kafelki
+        int[] offsets = galaxy.getLaneOffsets();
+        if (offsets != laneOffsets) {
+            tiles.clear();
+            laneOffsets = offsets;
+        }
+
+        double zoom = camera.getZoom();
+        int bucket = (int) Math.round(zoom / ZOOM_STEP);
+        double tileZoom = bucket * ZOOM_STEP;
+        double scale = zoom / tileZoom;
+
+        // Kafelki w przestrzeni pikseli przy tileZoom; połączenia wychodzą do starSize poza obszar gwiazd
+        int lastCol = (int) ((worldWidth + starSize) * tileZoom) / TILE_SIZE;
+        int lastRow = (int) ((worldHeight + starSize) * tileZoom) / TILE_SIZE;
+
+        int fromCol = Math.max(0, (int) Math.floor(camera.screenToWorldX(0) * tileZoom / TILE_SIZE));
+        int toCol = Math.min(lastCol, (int) Math.floor(camera.screenToWorldX(width) * tileZoom / TILE_SIZE));
+        int fromRow = Math.max(0, (int) Math.floor(camera.screenToWorldY(0) * tileZoom / TILE_SIZE));
+        int toRow = Math.min(lastRow, (int) Math.floor(camera.screenToWorldY(height) * tileZoom / TILE_SIZE));
+
+        if (fromCol > toCol || fromRow > toRow) return;
+        renderMissing(bucket, tileZoom, fromCol, toCol, fromRow, toRow, worldWidth, worldHeight);
+
+        int originX = camera.worldToScreenX(0);
+        int originY = camera.worldToScreenY(0);
+
+        for (int row = fromRow; row <= toRow; row++) {
+            int y1 = originY + (int) (row * TILE_SIZE * scale);
+            int y2 = originY + (int) ((row + 1) * TILE_SIZE * scale);
+
+            for (int col = fromCol; col <= toCol; col++) {
+                int x1 = originX + (int) (col * TILE_SIZE * scale);
+                int x2 = originX + (int) ((col + 1) * TILE_SIZE * scale);
+
+                BufferedImage tile = tiles.get(key(bucket, col, row));
+                if (x2 - x1 == TILE_SIZE && y2 - y1 == TILE_SIZE) {
+                    g.drawImage(tile, x1, y1, null);
+                } else {
+                    g.drawImage(tile, x1, y1, x2 - x1, y2 - y1, null);
+                }
+            }
+        }
+    }
+
+    private static long key(int bucket, int col, int row) {
+        return ((long) bucket << 48) | ((long) col << 24) | row;
+    }
+
+//    Brakujące kafelki widoku powstają z jednego wspólnego obrazu - połączenie przechodzące
+//    przez kilka kafelków jest wtedy rysowane raz, a nie osobno w każdym z nich
+    private void renderMissing(int bucket, double tileZoom, int fromCol, int toCol, int fromRow, int toRow,
+                               int worldWidth, int worldHeight) {
+        int minCol = Integer.MAX_VALUE, maxCol = -1;
+        int minRow = Integer.MAX_VALUE, maxRow = -1;
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int col = fromCol; col <= toCol; col++) {
+                if (!tiles.containsKey(key(bucket, col, row))) {
+                    minCol = Math.min(minCol, col);
+                    maxCol = Math.max(maxCol, col);
+                    minRow = Math.min(minRow, row);
+                    maxRow = Math.max(maxRow, row);
+                }
+            }
+        }
+        if (maxCol < 0) return;
+
+        BufferedImage region = new BufferedImage((maxCol - minCol + 1) * TILE_SIZE, (maxRow - minRow + 1) * TILE_SIZE,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = region.createGraphics();
+        try {
+            g2.translate(-minCol * TILE_SIZE, -minRow * TILE_SIZE);
+            background.draw(g2, tileZoom, worldWidth, worldHeight);
+            drawLanes(g2, tileZoom, minCol * TILE_SIZE, minRow * TILE_SIZE, region.getWidth(), region.getHeight());
+        } finally {
+            g2.dispose();
+        }
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                long key = key(bucket, col, row);
+                if (tiles.containsKey(key)) continue;
+
+                BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+                Graphics2D tg = tile.createGraphics();
+                tg.drawImage(region, -(col - minCol) * TILE_SIZE, -(row - minRow) * TILE_SIZE, null);
+                tg.dispose();
+                tiles.put(key, tile);
+            }
+        }
+    }
+
+//    Połączenia przecinające obszar w pikselach (x, y, width, height) - każde raz, od końca o mniejszym id.
+//    Każde połączenie przecinające obszar ma oba końce w obszarze powiększonym o najdłuższe połączenie.
+    private void drawLanes(Graphics2D g2, double tileZoom, int x, int y, int width, int height) {
+        double minX = x / tileZoom - starSize - LANE_MARGIN;
+        double minY = y / tileZoom - starSize - LANE_MARGIN;
+        double maxX = (x + width) / tileZoom + LANE_MARGIN;
+        double maxY = (y + height) / tileZoom + LANE_MARGIN;
+
+        double reach = galaxy.getMaxLaneLength();
+        int[] targets = galaxy.getLaneTargets();
+        double half = starSize / 2.0;
+
+        for (StarSystem system : galaxy.getSpatialIndex().inRect(minX - reach, minY - reach, maxX + reach, maxY + reach)) {
+            int id = system.getId();
+            for (int i = laneOffsets[id]; i < laneOffsets[id + 1]; i++) {
+                if (targets[i] < id) continue;
+                StarSystem neighbor = galaxy.getSystem(targets[i]);
+
+                if (Math.max(system.getX(), neighbor.getX()) < minX || Math.min(system.getX(), neighbor.getX()) > maxX
+                        || Math.max(system.getY(), neighbor.getY()) < minY || Math.min(system.getY(), neighbor.getY()) > maxY) {
+                    continue;
+                }
+
+                int x1 = (int) ((system.getX() + half) * tileZoom);
+                int y1 = (int) ((system.getY() + half) * tileZoom);
+                int x2 = (int) ((neighbor.getX() + half) * tileZoom);
+                int y2 = (int) ((neighbor.getY() + half) * tileZoom);
+
+                g2.setStroke(LANE_GLOW_STROKE);
+                g2.setColor(LANE_GLOW);
+                g2.drawLine(x1, y1, x2, y2);
+
+                g2.setStroke(LANE_STROKE);
+                g2.setColor(LANE_MAIN);
+                g2.drawLine(x1, y1, x2, y2);
+            }
+        }
+    }
+}
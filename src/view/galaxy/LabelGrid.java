@@ -0,0 +1,50 @@
+package view.galaxy;
+
+import java.util.Arrays;
+
+// Siatka zajętości ekranu dla nazw systemów: nazwa jest rysowana tylko wtedy, gdy jej prostokąt
+// nie nachodzi na wcześniej narysowaną. Komórki po CELL pikseli, bity w tablicy long.
+class LabelGrid {
+
+    private static final int CELL = 8;
+
+    private long[] bits = new long[0];
+    private int cols;
+    private int rows;
+
+    void reset(int width, int height) {
+        cols = Math.max(1, (width + CELL - 1) / CELL);
+        rows = Math.max(1, (height + CELL - 1) / CELL);
+
+        int words = (cols * rows + 63) >>> 6;
+        if (bits.length < words) {
+            bits = new long[words];
+        } else {
+            Arrays.fill(bits, 0, words, 0L);
+        }
+    }
+
+//    Zajmuje prostokąt, jeśli jest wolny - fragmenty poza ekranem nie kolidują
+    boolean tryReserve(int x, int y, int width, int height) {
+        int fromCol = Math.max(0, Math.floorDiv(x, CELL));
+        int toCol = Math.min(cols - 1, Math.floorDiv(x + width - 1, CELL));
+        int fromRow = Math.max(0, Math.floorDiv(y, CELL));
+        int toRow = Math.min(rows - 1, Math.floorDiv(y + height - 1, CELL));
+        if (fromCol > toCol || fromRow > toRow) return false;
+
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int col = fromCol; col <= toCol; col++) {
+                int cell = row * cols + col;
+                if ((bits[cell >>> 6] & (1L << cell)) != 0) return false;
+            }
+        }
+
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int col = fromCol; col <= toCol; col++) {
+                int cell = row * cols + col;
+                bits[cell >>> 6] |= 1L << cell;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+package view.galaxy;
+
+import model.galaxy.StarSystem;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.LineMetrics;
+import java.util.Arrays;
+
+// Nazwy systemów ułożone raz do GlyphVector (indeks = id systemu) - rysowanie nie układa tekstu od nowa
+// w każdej klatce. Zmiana czcionki albo kontekstu renderowania (np. skalowanie ekranu) czyści pamięć.
+class StarLabelCache {
+
+    private Font font;
+    private FontRenderContext frc;
+    private int ascent;
+    private int height;
+
+    private GlyphVector[] glyphs = new GlyphVector[0];
+    private int[] widths = new int[0];
+
+    void clear() {
+        glyphs = new GlyphVector[0];
+        widths = new int[0];
+    }
+
+    GlyphVector get(Graphics2D g, StarSystem system) {
+        Font currentFont = g.getFont();
+        FontRenderContext currentFrc = g.getFontRenderContext();
+        if (!currentFont.equals(font) || !currentFrc.equals(frc)) {
+            font = currentFont;
+            frc = currentFrc;
+            LineMetrics metrics = font.getLineMetrics("Hg", frc);
+            ascent = (int) Math.ceil(metrics.getAscent());
+            height = ascent + (int) Math.ceil(metrics.getDescent());
+            Arrays.fill(glyphs, null);
+        }
+
+        int id = system.getId();
+        if (id >= glyphs.length) {
+            int length = Math.max(id + 1, glyphs.length * 2);
+            glyphs = Arrays.copyOf(glyphs, length);
+            widths = Arrays.copyOf(widths, length);
+        }
+
+        GlyphVector glyph = glyphs[id];
+        if (glyph == null) {
+            glyph = font.createGlyphVector(frc, system.getName());
+            glyphs[id] = glyph;
+            widths[id] = (int) Math.ceil(glyph.getLogicalBounds().getWidth());
+        }
+        return glyph;
+    }
+
+//    Szerokość nazwy - poprawna po wywołaniu get() dla tego systemu
+    int width(StarSystem system) {
+        return widths[system.getId()];
+    }
+
+    int ascent() {
+        return ascent;
+    }
+
+    int height() {
+        return height;
+    }
+}